@@ -1,6 +1,14 @@
 package com.example;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 public class APIEndpoint {
+        public static final String FILE = "api_endpoints.json";
+
         public MethodMetadata methodMetadata;
         public String httpVerb;
         public String methodPath;
@@ -28,4 +36,21 @@ public class APIEndpoint {
                     "\"classMapping\": \"" + classMapping + "\"" +
                     "}";
         }
-    }
\ No newline at end of file
+
+        /**
+         * Reads an api_endpoints.json file written by {@link APIEndpointWriter}.
+         */
+        @SuppressWarnings("unchecked")
+        public static List<APIEndpoint> readJson(Path file) throws IOException {
+            List<APIEndpoint> endpoints = new ArrayList<>();
+            for (Object item : (List<Object>) JsonReader.read(file)) {
+                Map<String, Object> endpoint = (Map<String, Object>) item;
+                endpoints.add(new APIEndpoint(
+                        MethodMetadata.parse((String) endpoint.get("methodMetadata")),
+                        (String) endpoint.get("httpVerb"),
+                        (String) endpoint.get("methodPath"),
+                        (String) endpoint.get("classMapping")));
+            }
+            return endpoints;
+        }
+    }
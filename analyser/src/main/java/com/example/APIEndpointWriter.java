@@ -1,13 +1,43 @@
 package com.example;
 
-import java.io.FileWriter;
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
 
 /**
- * Utility class to write a list of APIEndpoint objects into a JSON file.
+ * Utility class to stream APIEndpoint objects into a JSON file.
  */
-public class APIEndpointWriter {
+public class APIEndpointWriter implements Closeable {
+    private final JsonOutput out;
+    private int count = 0;
+
+    public APIEndpointWriter(String outputFile) throws IOException {
+        this(new JsonOutput(outputFile));
+    }
+
+    /** Streams into {@code out}, which is closed together with this writer. */
+    public APIEndpointWriter(JsonOutput out) throws IOException {
+        this.out = out;
+        out.raw("[\n");
+    }
+
+    public void write(APIEndpoint endpoint) throws IOException {
+        out.raw(count++ == 0 ? "{" : ",\n{")
+                .raw("\"methodMetadata\": ").string(endpoint.methodMetadata.toString())
+                .raw(",\"httpVerb\": ").string(endpoint.httpVerb)
+                .raw(",\"methodPath\": ").string(endpoint.methodPath)
+                .raw(",\"classMapping\": ").string(endpoint.classMapping)
+                .raw("}");
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.raw("\n]");
+        } finally {
+            out.close();
+        }
+    }
 
     /**
      * Write a list of APIEndpoint objects to a JSON file.
@@ -16,15 +46,10 @@ public class APIEndpointWriter {
      * @throws IOException
      */
     public static void writeAsJson(List<APIEndpoint> apiEndpoints, String outputFile) throws IOException {
-        try (FileWriter writer = new FileWriter(outputFile)) {
-            writer.write("[\n");
-            for (int i = 0; i < apiEndpoints.size(); i++) {
-                writer.write(apiEndpoints.get(i).toJson());
-                if (i < apiEndpoints.size() - 1) {
-                    writer.write(",\n");
-                }
+        try (APIEndpointWriter writer = new APIEndpointWriter(outputFile)) {
+            for (APIEndpoint endpoint : apiEndpoints) {
+                writer.write(endpoint);
             }
-            writer.write("\n]");
         }
     }
 }
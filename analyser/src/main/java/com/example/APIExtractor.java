@@ -1,21 +1,22 @@
 package com.example;
 
-import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
 import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.*;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
  * Extracts all Spring Boot API endpoint methods from a project directory.
  * Each API contains a MethodMetadata, httpVerb, methodPath, and classMapping.
  */
-public class APIExtractor {
+public class APIExtractor implements SourceFileVisitor {
 
     // Annotations indicating a Spring controller class
     private static final Set<String> CONTROLLER_ANNOTATIONS = Set.of(
@@ -25,6 +26,26 @@ public class APIExtractor {
     private static final Set<String> MAPPING_ANNOTATIONS = Set.of(
             "RequestMapping", "GetMapping", "PostMapping", "PutMapping", "DeleteMapping", "PatchMapping");
 
+    // Files without any controller or mapping annotation cannot declare endpoints; interfaces
+    // and base classes whose mappings controllers inherit still pass, and so do subclasses, which
+    // may take all of their annotations from a supertype
+    private static final AnnotationScanner PREFILTER = new AnnotationScanner(
+            union(CONTROLLER_ANNOTATIONS, MAPPING_ANNOTATIONS), Set.of("extends", "implements"));
+
+    private final List<APIEndpoint> endpoints = Collections.synchronizedList(new ArrayList<>());
+    private final TypeNameResolver typeNames;
+
+    public APIExtractor() {
+        this(new TypeNameResolver());
+    }
+
+    /**
+     * @param typeNames resolver shared with the other indexes, so endpoint keys match theirs
+     */
+    public APIExtractor(TypeNameResolver typeNames) {
+        this.typeNames = typeNames;
+    }
+
     /**
      * Analyse the given project root directory, and extract all API endpoints.
      * @param rootDir the project directory
@@ -32,75 +53,169 @@ public class APIExtractor {
      * @throws IOException
      */
     public List<APIEndpoint> analyseProject(String rootDir) throws IOException {
-        List<APIEndpoint> endpoints = new ArrayList<>();
-        List<File> javaFiles = findJavaFiles(rootDir);
-        for (File javaFile : javaFiles) {
-            endpoints.addAll(extractFromFile(javaFile));
-        }
+        new AnalysisPipeline(new ParserConfiguration())
+                .filter(APIExtractor::mayDeclareEndpoints)
+                .addVisitor(this)
+                .run(rootDir);
         return endpoints;
     }
 
-    /** Find all .java files in a directory recursively */
-    private List<File> findJavaFiles(String rootDir) throws IOException {
-        List<File> files = new ArrayList<>();
-        Files.walk(Paths.get(rootDir))
-                .filter(path -> path.toString().endsWith(".java"))
-                .forEach(path -> files.add(path.toFile()));
-        return files;
+    /**
+     * Byte-level check, without parsing, that a file may declare endpoints. False only for files
+     * that use none of the controller and mapping annotations.
+     */
+    public static boolean mayDeclareEndpoints(Path javaFile) {
+        return PREFILTER.mayUse(javaFile);
+    }
+
+    @Override
+    public void visit(SourceFile sourceFile) {
+        endpoints.addAll(extractFromSourceFile(sourceFile));
     }
 
     /**
-     * Extract endpoints from a single Java source file.
+     * Extract endpoints from a file the pipeline parsed for every extractor. Files the lexical
+     * check rejects are not walked.
      */
-    private List<APIEndpoint> extractFromFile(File javaFile) {
-        List<APIEndpoint> endpoints = new ArrayList<>();
-        CompilationUnit cu;
+    public List<APIEndpoint> extractFromSourceFile(SourceFile sourceFile) {
+        if (sourceFile.content != null && !PREFILTER.mayUse(sourceFile.content)) {
+            return new ArrayList<>();
+        }
+        return extractFromCompilationUnit(sourceFile.compilationUnit);
+    }
+
+    /** Endpoints collected from every file visited so far. */
+    public List<APIEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Extract endpoints from a single parsed Java source file.
+     */
+    public List<APIEndpoint> extractFromCompilationUnit(CompilationUnit cu) {
+        Metrics.Timer timer = Metrics.get().time(Metrics.EXTRACT);
         try {
-            cu = StaticJavaParser.parse(javaFile);
-        } catch (Exception e) {
-            // ignore unparseable files
+            List<APIEndpoint> endpoints = extractEndpoints(cu);
+            Metrics.get().add(Metrics.ENDPOINTS, endpoints.size());
             return endpoints;
+        } finally {
+            timer.close();
         }
+    }
 
+    private List<APIEndpoint> extractEndpoints(CompilationUnit cu) {
+        List<APIEndpoint> endpoints = new ArrayList<>();
         cu.findAll(ClassOrInterfaceDeclaration.class).forEach(clazz -> {
-            if (!isController(clazz)) return;
+            // Spring also finds controller and mapping annotations on supertypes
+            // Abstract classes and interfaces serve nothing themselves; their subclasses do
+            if (clazz.isInterface() || clazz.isAbstract()) return;
+            List<ClassOrInterfaceDeclaration> supertypes = projectSupertypes(clazz);
+            if (!isController(clazz, supertypes)) return;
 
             String className = clazz.getNameAsString();
-            String packageName = cu.getPackageDeclaration().map(pd -> pd.getNameAsString()).orElse("");
-            String classMapping = extractClassLevelMapping(clazz);
+            String packageName = packageOf(clazz);
+            String classMapping = extractClassLevelMapping(clazz, supertypes);
 
+            Set<String> declared = new HashSet<>();
             clazz.findAll(MethodDeclaration.class).forEach(method -> {
-                String httpVerb = null;
-                String methodPath = null;
-
-                for (AnnotationExpr ann : method.getAnnotations()) {
-                    String annName = ann.getName().getIdentifier();
-                    if (MAPPING_ANNOTATIONS.contains(annName)) {
-                        httpVerb = deriveHttpVerb(annName, ann);
-                        methodPath = extractPathValue(ann);
-                        break;
-                    }
-                }
+                declared.add(methodKey(method));
+                if (method.getBody().isEmpty()) return;
+                AnnotationExpr mapping = findMapping(method, supertypes);
                 // If method has no mapping annotation, skip it
-                if (httpVerb == null) return;
-                if (methodPath == null) methodPath = "";
-                List<String> paramTypes = new ArrayList<>();
-                method.getParameters().forEach(param -> 
-                    paramTypes.add(getFullyQualifiedTypeName(cu, param.getType().asString())));
-                MethodMetadata methodMetadata = new MethodMetadata(
-                        packageName,
-                        className,
-                        method.getNameAsString(),
-                        paramTypes
-                );
-                endpoints.add(
-                        new APIEndpoint(methodMetadata, httpVerb, methodPath, classMapping));
+                if (mapping == null) return;
+                endpoints.add(newEndpoint(packageName, className, method, mapping, classMapping));
             });
+
+            // Mapped methods inherited without an override run in, and are keyed by, the supertype
+            for (ClassOrInterfaceDeclaration supertype : supertypes) {
+                for (MethodDeclaration method : supertype.getMethods()) {
+                    if (method.getBody().isEmpty() || !declared.add(methodKey(method))) continue;
+                    AnnotationExpr mapping = findMapping(method, supertypes);
+                    if (mapping == null) continue;
+                    endpoints.add(newEndpoint(
+                            packageOf(supertype), supertype.getNameAsString(), method, mapping, classMapping));
+                }
+            }
         });
         return endpoints;
     }
 
-    private boolean isController(ClassOrInterfaceDeclaration clazz) {
+    private APIEndpoint newEndpoint(
+            String packageName, String className, MethodDeclaration method, AnnotationExpr mapping,
+            String classMapping) {
+        String annName = mapping.getName().getIdentifier();
+        String httpVerb = deriveHttpVerb(annName, mapping);
+        String methodPath = extractPathValue(mapping);
+        if (methodPath == null) methodPath = "";
+        List<String> paramTypes = new ArrayList<>();
+        method.getParameters().forEach(param ->
+            paramTypes.add(typeNames.qualify(param.getType())));
+        MethodMetadata methodMetadata = new MethodMetadata(
+                packageName,
+                className,
+                method.getNameAsString(),
+                paramTypes
+        );
+        return new APIEndpoint(methodMetadata, httpVerb, methodPath, classMapping);
+    }
+
+    private static String packageOf(ClassOrInterfaceDeclaration clazz) {
+        return clazz.findCompilationUnit()
+                .flatMap(CompilationUnit::getPackageDeclaration)
+                .map(pd -> pd.getNameAsString())
+                .orElse("");
+    }
+
+    private static Set<String> union(Set<String> a, Set<String> b) {
+        Set<String> names = new HashSet<>(a);
+        names.addAll(b);
+        return names;
+    }
+
+    /**
+     * Classes and interfaces declared in the project that {@code clazz} extends or implements,
+     * directly or not, nearest first. Library supertypes are not looked into.
+     */
+    private List<ClassOrInterfaceDeclaration> projectSupertypes(ClassOrInterfaceDeclaration clazz) {
+        List<ClassOrInterfaceDeclaration> supertypes = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        Deque<ClassOrInterfaceDeclaration> queue = new ArrayDeque<>();
+        queue.add(clazz);
+        while (!queue.isEmpty()) {
+            ClassOrInterfaceDeclaration type = queue.poll();
+            List<ClassOrInterfaceType> direct = new ArrayList<>(type.getExtendedTypes());
+            direct.addAll(type.getImplementedTypes());
+            for (ClassOrInterfaceType supertype : direct) {
+                String name = typeNames.qualify(supertype);
+                int typeArguments = name.indexOf('<');
+                name = typeArguments < 0 ? name : name.substring(0, typeArguments);
+                if (!seen.add(name)) continue;
+                typeNames.findProjectType(name)
+                        .filter(TypeDeclaration::isClassOrInterfaceDeclaration)
+                        .map(TypeDeclaration::asClassOrInterfaceDeclaration)
+                        .ifPresent(declaration -> {
+                            supertypes.add(declaration);
+                            queue.add(declaration);
+                        });
+            }
+        }
+        return supertypes;
+    }
+
+    private boolean isController(
+            ClassOrInterfaceDeclaration clazz, List<ClassOrInterfaceDeclaration> supertypes) {
+        if (hasControllerAnnotation(clazz)) {
+            return true;
+        }
+        for (ClassOrInterfaceDeclaration supertype : supertypes) {
+            if (hasControllerAnnotation(supertype)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasControllerAnnotation(ClassOrInterfaceDeclaration clazz) {
         for (AnnotationExpr ann : clazz.getAnnotations()) {
             String name = ann.getName().getIdentifier();
             if (CONTROLLER_ANNOTATIONS.contains(name)) {
@@ -111,8 +226,56 @@ public class APIExtractor {
     }
 
     /**
-     * Extract the path from a class-level @RequestMapping
+     * The method's mapping annotation, or else that of the nearest supertype method it overrides.
      */
+    private AnnotationExpr findMapping(
+            MethodDeclaration method, List<ClassOrInterfaceDeclaration> supertypes) {
+        AnnotationExpr mapping = ownMapping(method);
+        if (mapping != null || method.isStatic() || method.isPrivate()) {
+            return mapping;
+        }
+        String key = methodKey(method);
+        for (ClassOrInterfaceDeclaration supertype : supertypes) {
+            for (MethodDeclaration overridden : supertype.getMethodsByName(method.getNameAsString())) {
+                if (methodKey(overridden).equals(key)) {
+                    mapping = ownMapping(overridden);
+                    if (mapping != null) return mapping;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static AnnotationExpr ownMapping(MethodDeclaration method) {
+        for (AnnotationExpr ann : method.getAnnotations()) {
+            if (MAPPING_ANNOTATIONS.contains(ann.getName().getIdentifier())) {
+                return ann;
+            }
+        }
+        return null;
+    }
+
+    // Name and parameter types; a method overriding another has the same
+    private String methodKey(MethodDeclaration method) {
+        StringBuilder key = new StringBuilder(method.getNameAsString()).append('(');
+        method.getParameters().forEach(param ->
+            key.append(typeNames.qualify(param.getType())).append(','));
+        return key.append(')').toString();
+    }
+
+    /**
+     * Extract the path from a class-level @RequestMapping, of the class or else its nearest
+     * supertype that has one
+     */
+    private String extractClassLevelMapping(
+            ClassOrInterfaceDeclaration clazz, List<ClassOrInterfaceDeclaration> supertypes) {
+        String mapping = extractClassLevelMapping(clazz);
+        for (int i = 0; mapping == null && i < supertypes.size(); i++) {
+            mapping = extractClassLevelMapping(supertypes.get(i));
+        }
+        return mapping == null ? "" : mapping;
+    }
+
     private String extractClassLevelMapping(ClassOrInterfaceDeclaration clazz) {
         for (AnnotationExpr ann : clazz.getAnnotations()) {
             String name = ann.getName().getIdentifier();
@@ -121,7 +284,7 @@ public class APIExtractor {
                 if (val != null) return val;
             }
         }
-        return "";
+        return null;
     }
 
     /**
@@ -182,56 +345,4 @@ public class APIExtractor {
             default: return annName.replace("Mapping", "").toUpperCase();
         }
     }
-
-    private String getFullyQualifiedTypeName(CompilationUnit cu, String simpleTypeName) {
-        // Remove generics for lookup (e.g., "Page<Owner>" -> "Page")
-        String baseType = simpleTypeName.replaceAll("<.*>", "").trim();
-
-        // Check if it's a primitive
-        if (isPrimitive(baseType)) {
-            return simpleTypeName; // Keep as-is for primitives like int, long, etc.
-        }
-
-        // Check if it's a java.lang type
-        if (isJavaLangType(baseType)) {
-            return simpleTypeName.replace(baseType, "java.lang." + baseType);
-        }
-
-        // Look through imports for matching type
-        for (var importDecl : cu.getImports()) {
-            String importName = importDecl.getNameAsString();
-            if (importName.endsWith("." + baseType)) {
-                // Replace the simple name with the fully qualified one
-                return simpleTypeName.replace(baseType, importName);
-            }
-        }
-
-        // If not found in imports, assume it's in the same package
-        String packageName =
-                cu.getPackageDeclaration().map(pd -> pd.getNameAsString()).orElse("");
-
-        return packageName.isEmpty() ? simpleTypeName : packageName + "." + simpleTypeName;
-    }
-
-    private boolean isPrimitive(String type) {
-        return type.matches("byte|short|int|long|float|double|boolean|char|void");
-    }
-
-    private boolean isJavaLangType(String type) {
-        // Common java.lang types (no import needed)
-        return type.equals("String")
-                || type.equals("Object")
-                || type.equals("Integer")
-                || type.equals("Long")
-                || type.equals("Double")
-                || type.equals("Float")
-                || type.equals("Short")
-                || type.equals("Byte")
-                || type.equals("Character")
-                || type.equals("Boolean")
-                || type.equals("Number")
-                || type.equals("Class")
-                || type.equals("Void");
-    }
 }
-
@@ -0,0 +1,179 @@
+package com.example;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Walks a source root once, parses every .java file once and hands the resulting compilation
+ * unit to all registered visitors.
+ *
+ * <p>With more than one thread the files are processed on a work-stealing {@link ForkJoinPool}.
+ * Every worker owns a {@link JavaParser} built from its own {@link ParserConfiguration}, so symbol
+ * solvers are never shared between threads. Visitors must then be thread-safe.
+ */
+public class AnalysisPipeline {
+
+  private final ThreadLocal<JavaParser> parsers;
+  private final int threads;
+  private final List<SourceFileVisitor> visitors = new ArrayList<>();
+  private CompilationUnitCache reusedUnits;
+  private Predicate<Path> filter = file -> true;
+
+  public AnalysisPipeline(ParserConfiguration configuration) {
+    this(() -> configuration, 1);
+  }
+
+  public AnalysisPipeline(Supplier<ParserConfiguration> configurationFactory, int threads) {
+    this.parsers = ThreadLocal.withInitial(() -> new JavaParser(configurationFactory.get()));
+    this.threads = Math.max(1, threads);
+  }
+
+  public AnalysisPipeline addVisitor(SourceFileVisitor visitor) {
+    visitors.add(visitor);
+    return this;
+  }
+
+  /**
+   * Takes files the symbol solver has already parsed from {@code units} instead of parsing them
+   * again. Only honoured with one thread, whose parser must share its solver with the cache.
+   */
+  public AnalysisPipeline reuse(CompilationUnitCache units) {
+    this.reusedUnits = units;
+    return this;
+  }
+
+  /**
+   * Skips files {@code filter} rejects before they are read or parsed. The filter runs on the
+   * workers, so it must be thread-safe.
+   */
+  public AnalysisPipeline filter(Predicate<Path> filter) {
+    this.filter = filter;
+    return this;
+  }
+
+  public void run(String projectRoot) throws IOException {
+    List<Path> javaFiles;
+    Metrics.Timer timer = Metrics.get().time(Metrics.WALK);
+    try {
+      javaFiles = findJavaFiles(projectRoot);
+    } finally {
+      timer.close();
+    }
+    run(javaFiles);
+  }
+
+  public void run(List<Path> javaFiles) throws IOException {
+    if (threads == 1) {
+      javaFiles.forEach(this::process);
+      return;
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      pool.submit(() -> javaFiles.parallelStream().forEach(this::process)).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Analysis interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Analysis failed: " + e.getCause().getMessage(), e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private void process(Path javaFile) {
+    if (!filter.test(javaFile)) {
+      Metrics.get().increment(Metrics.FILTERED_FILES);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      processTimed(javaFile);
+    } finally {
+      Metrics.get().recordFile(javaFile, System.nanoTime() - start);
+    }
+  }
+
+  private void processTimed(Path javaFile) {
+    CompilationUnit cu;
+    String content;
+    Metrics.Timer timer = Metrics.get().time(Metrics.PARSE);
+    try {
+      // Read once; extractors slice method code from this text instead of re-reading the file
+      content = new String(Files.readAllBytes(javaFile), StandardCharsets.UTF_8);
+      cu = reusedUnit(javaFile);
+      if (cu == null) {
+        ParseResult<CompilationUnit> result = parsers.get().parse(content);
+        if (!result.isSuccessful() || result.getResult().isEmpty()) {
+          Metrics.get().increment(Metrics.PARSE_ERRORS);
+          System.err.println("  Error parsing: " + javaFile + " - " + result.getProblems());
+          return;
+        }
+        cu = result.getResult().get();
+      }
+      cu.setStorage(javaFile);
+    } catch (Exception e) {
+      Metrics.get().increment(Metrics.PARSE_ERRORS);
+      System.err.println("  Error parsing: " + javaFile + " - " + e.getMessage());
+      return;
+    } finally {
+      timer.close();
+    }
+
+    SourceFile sourceFile = new SourceFile(javaFile, cu, content);
+    for (SourceFileVisitor visitor : visitors) {
+      try {
+        visitor.visit(sourceFile);
+      } catch (Exception e) {
+        Metrics.get().increment(Metrics.ANALYSIS_ERRORS);
+        System.err.println("  Error analyzing: " + javaFile + " - " + e.getMessage());
+      }
+    }
+  }
+
+  // The solver's unit of a file, made resolvable by this pipeline's parser; null if not cached
+  private CompilationUnit reusedUnit(Path javaFile) {
+    if (reusedUnits == null || threads > 1) {
+      return null;
+    }
+    CompilationUnit cu = reusedUnits.getUnit(javaFile).orElse(null);
+    if (cu == null) {
+      return null;
+    }
+    parsers.get().getParserConfiguration().getSymbolResolver()
+        .ifPresent(resolver -> cu.setData(Node.SYMBOL_RESOLVER_KEY, resolver));
+    Metrics.get().increment(Metrics.REUSED_UNITS);
+    return cu;
+  }
+
+  static List<Path> findJavaFiles(String projectRoot) throws IOException {
+    try (Stream<Path> paths = Files.walk(Paths.get(projectRoot))) {
+      return paths.filter(p -> p.toString().endsWith(".java")).collect(Collectors.toList());
+    }
+  }
+
+  /** Java files below all {@code sourceRoots}, which are walked in order. */
+  static List<Path> findJavaFiles(List<Path> sourceRoots) throws IOException {
+    List<Path> javaFiles = new ArrayList<>();
+    for (Path root : sourceRoots) {
+      javaFiles.addAll(findJavaFiles(root.toString()));
+    }
+    return javaFiles;
+  }
+}
@@ -0,0 +1,443 @@
+package com.example;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the analysis of a source root in memory and answers queries over HTTP on the loopback
+ * interface.
+ *
+ * <p>The shared symbol solver with its parsed compilation units, the resolution cache and all
+ * indexes stay warm between queries. A {@link WatchService} reports edited, added and deleted
+ * files, which are re-analysed on their own through {@link IncrementalIndex#update}. Queries are
+ * answered from an immutable snapshot that is replaced once an update is done.
+ *
+ * <p>All queries are GET requests with URL-encoded parameters and answer JSON:
+ *
+ * <ul>
+ *   <li>{@code /dependencies?method=SIG} methods called by a method
+ *   <li>{@code /callers?method=SIG} methods calling a method
+ *   <li>{@code /closure?method=SIG&maxDepth=N&maxNodes=N&include=P&exclude=P} see {@link
+ *       DependencyClosure}; all but {@code method} are optional
+ *   <li>{@code /code?method=SIG} source of a method
+ *   <li>{@code /endpoints} all API endpoints
+ *   <li>{@code /impact?file=PATH&method=SIG} endpoints affected by changed files and methods
+ *   <li>{@code /status} sizes of the indexes
+ *   <li>{@code /metrics} timings and counters since startup, see {@link Metrics}
+ * </ul>
+ */
+public class AnalyzerDaemon {
+  public static final int DEFAULT_PORT = 8745;
+  // Quiet period that groups the events of one save or checkout into a single update
+  private static final long SETTLE_MILLIS = 200;
+
+  private final Path projectRoot;
+  private final String outputDir;
+  private final DependencyAnalyzer dependencyAnalyzer;
+  private final IncrementalIndex index;
+  // Re-analyses touched files with the shared, warm symbol solver
+  private final AnalysisPipeline updatePipeline;
+  private volatile Snapshot snapshot;
+  private HttpServer server;
+  private ExecutorService queryExecutor;
+
+  /** Indexes as of one update; never modified, so queries need no locking. */
+  private static class Snapshot {
+    final CallGraph graph;
+    final DependencyClosure closure;
+    final ImpactAnalyzer impact;
+    final List<APIEndpoint> endpoints;
+    final Map<String, List<String>> keysByFile;
+    final Map<String, String> code;
+
+    Snapshot(IncrementalIndex index) {
+      graph = index.getCallGraph();
+      closure = new DependencyClosure(graph);
+      endpoints = new ArrayList<>(index.getEndpoints());
+      impact = new ImpactAnalyzer(graph, endpoints);
+      keysByFile = index.getDependencyKeys();
+      code = Map.copyOf(index.getCodeMap());
+    }
+  }
+
+  private interface Query {
+    void answer(Map<String, List<String>> parameters, JsonOutput out) throws IOException;
+  }
+
+  public AnalyzerDaemon(
+      String projectRoot, String outputDir, DependencyAnalyzer dependencyAnalyzer) {
+    this.projectRoot = Paths.get(projectRoot);
+    this.outputDir = outputDir;
+    this.dependencyAnalyzer = dependencyAnalyzer;
+    this.index =
+        new IncrementalIndex(
+            projectRoot, outputDir, dependencyAnalyzer,
+            new CodeExtractor(dependencyAnalyzer.getTypeNameResolver()),
+            new APIExtractor(dependencyAnalyzer.getTypeNameResolver()));
+    this.updatePipeline =
+        new AnalysisPipeline(dependencyAnalyzer.getParserConfiguration())
+            .reuse(dependencyAnalyzer.getCompilationUnits())
+            .addVisitor(index);
+  }
+
+  /** Analyses whatever changed since the last run into {@code outputDir} and writes the outputs. */
+  public synchronized void load(int threads) throws IOException {
+    new AnalysisPipeline(dependencyAnalyzer.parserConfigurations(threads), threads)
+        .reuse(dependencyAnalyzer.getCompilationUnits())
+        .addVisitor(index)
+        .run(index.prepare(false));
+    snapshot = new Snapshot(index);
+    AnalyzerEntry.writeOutputsWithoutSchedule(index, snapshot.graph, outputDir, false);
+  }
+
+  /** Re-analyses touched files and publishes a new snapshot. */
+  public synchronized void update(Collection<Path> touched) throws IOException {
+    long start = System.nanoTime();
+    List<Path> changed = index.update(touched);
+    dependencyAnalyzer.invalidate(touched);
+    updatePipeline.run(changed);
+    snapshot = new Snapshot(index);
+    System.out.println(
+        "AnalyzerDaemon: re-analysed "
+            + changed.size()
+            + " of "
+            + touched.size()
+            + " touched files in "
+            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+            + " ms");
+  }
+
+  /** Writes the current outputs and manifest, so the next start only analyses later changes. */
+  public synchronized void save() {
+    // The snapshot is replaced under the same lock, so its graph is the index's
+    AnalyzerEntry.writeOutputsWithoutSchedule(index, snapshot.graph, outputDir, false);
+  }
+
+  /** Starts answering queries on {@code port} of the loopback interface. */
+  public synchronized HttpServer serve(int port) throws IOException {
+    HttpServer server =
+        HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    handle(server, "/dependencies", (parameters, out) -> {
+      CallGraph graph = snapshot.graph;
+      int id = graph.findCaller(required(parameters, "method"));
+      List<String> callees = new ArrayList<>();
+      for (int i = 0; id >= 0 && i < graph.calleeCount(id); i++) {
+        callees.add(graph.signature(graph.callee(id, i)));
+      }
+      out.stringArray(callees);
+    });
+    handle(server, "/callers", (parameters, out) -> {
+      CallGraph graph = snapshot.graph;
+      String method = required(parameters, "method");
+      int id = graph.id(method) >= 0 ? graph.id(method) : graph.findCaller(method);
+      List<String> callers = new ArrayList<>();
+      for (int i = 0; id >= 0 && i < graph.callerCountOf(id); i++) {
+        callers.add(graph.signature(graph.callerOf(id, i)));
+      }
+      out.stringArray(callers);
+    });
+    handle(server, "/closure", (parameters, out) -> {
+      DependencyClosure.Limits limits =
+          new DependencyClosure.Limits(
+              intParameter(parameters, "maxDepth"),
+              intParameter(parameters, "maxNodes"),
+              parameters.getOrDefault("include", Collections.emptyList()),
+              parameters.getOrDefault("exclude", Collections.emptyList()));
+      out.stringArray(snapshot.closure.closure(required(parameters, "method"), limits));
+    });
+    handle(server, "/code", (parameters, out) -> {
+      String code = snapshot.code.get(required(parameters, "method"));
+      if (code == null) {
+        out.raw("null");
+      } else {
+        out.string(code);
+      }
+    });
+    handle(server, "/endpoints", (parameters, out) -> writeEndpoints(snapshot.endpoints, out));
+    handle(server, "/impact", (parameters, out) -> {
+      Snapshot current = snapshot;
+      List<String> methods =
+          new ArrayList<>(parameters.getOrDefault("method", Collections.emptyList()));
+      methods.addAll(
+          ImpactAnalyzer.methodsOfFiles(
+              current.keysByFile, parameters.getOrDefault("file", Collections.emptyList())));
+      writeEndpoints(current.impact.affectedEndpoints(methods), out);
+    });
+    handle(server, "/status", (parameters, out) -> {
+      Snapshot current = snapshot;
+      out.raw("{\"files\": " + current.keysByFile.size())
+          .raw(", \"methods\": " + current.graph.callerCount())
+          .raw(", \"edges\": " + current.graph.edgeCount())
+          .raw(", \"endpoints\": " + current.endpoints.size())
+          .raw(", \"resolutionCache\": ")
+          .string(dependencyAnalyzer.getResolutionCache().toString())
+          .raw("}");
+    });
+    handle(server, "/metrics", (parameters, out) -> Metrics.get().writeJson(out));
+    ExecutorService queryExecutor = Executors.newFixedThreadPool(4);
+    server.setExecutor(queryExecutor);
+    server.start();
+    this.server = server;
+    this.queryExecutor = queryExecutor;
+    return server;
+  }
+
+  /** Stops answering queries and ends the query threads, which would otherwise keep the JVM up. */
+  public synchronized void stop() {
+    if (server != null) {
+      server.stop(0);
+      queryExecutor.shutdown();
+      server = null;
+      queryExecutor = null;
+    }
+  }
+
+  /** Re-analyses files as they change until the thread is interrupted. */
+  public void watch() throws IOException, InterruptedException {
+    try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+      Map<WatchKey, Path> directories = new HashMap<>();
+      register(projectRoot, watcher, directories);
+      while (true) {
+        WatchKey key = watcher.take();
+        Set<Path> touched = new LinkedHashSet<>();
+        boolean rescan = false;
+        // Dropped after the batch, so a deletion reported later in it still finds its directory
+        List<WatchKey> cancelled = new ArrayList<>();
+        do {
+          Path directory = directories.get(key);
+          for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW || directory == null) {
+              rescan = true;
+              continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (path.toString().endsWith(".java")) {
+              touched.add(path);
+            } else if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+              register(path, watcher, directories);
+              touched.addAll(AnalysisPipeline.findJavaFiles(path.toString()));
+            } else if (event.kind() == ENTRY_DELETE && directories.containsValue(path)) {
+              // A deleted directory does not report its files; other deletions, such as editor
+              // swap files, do not matter
+              rescan = true;
+            }
+          }
+          if (!key.reset()) {
+            cancelled.add(key);
+          }
+        } while ((key = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null);
+        directories.keySet().removeAll(cancelled);
+
+        if (rescan) {
+          touched.addAll(AnalysisPipeline.findJavaFiles(projectRoot.toString()));
+          touched.addAll(index.getKnownFiles());
+        }
+        try {
+          update(touched);
+        } catch (IOException e) {
+          System.err.println("Error: " + e.getMessage());
+        }
+      }
+    }
+  }
+
+  private static void register(Path root, WatchService watcher, Map<WatchKey, Path> directories)
+      throws IOException {
+    try (Stream<Path> paths = Files.walk(root)) {
+      for (Path directory : paths.filter(Files::isDirectory).collect(Collectors.toList())) {
+        directories.put(
+            directory.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), directory);
+      }
+    }
+  }
+
+  private static void handle(HttpServer server, String path, Query query) {
+    server.createContext(
+        path,
+        exchange -> {
+          int status = 200;
+          StringWriter body = new StringWriter();
+          try (JsonOutput out = new JsonOutput(body)) {
+            query.answer(parameters(exchange.getRequestURI()), out);
+          } catch (Exception e) {
+            status = e instanceof IllegalArgumentException ? 400 : 500;
+            body = new StringWriter();
+            try (JsonOutput out = new JsonOutput(body)) {
+              out.raw("{\"error\": ").string(String.valueOf(e.getMessage())).raw("}");
+            }
+          }
+          respond(exchange, status, body.toString());
+        });
+  }
+
+  private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static void writeEndpoints(List<APIEndpoint> endpoints, JsonOutput out)
+      throws IOException {
+    try (APIEndpointWriter writer = new APIEndpointWriter(out)) {
+      for (APIEndpoint endpoint : endpoints) {
+        writer.write(endpoint);
+      }
+    }
+  }
+
+  private static Map<String, List<String>> parameters(URI uri) {
+    Map<String, List<String>> parameters = new HashMap<>();
+    String query = uri.getRawQuery();
+    if (query == null || query.isEmpty()) {
+      return parameters;
+    }
+    for (String pair : query.split("&")) {
+      int eq = pair.indexOf('=');
+      String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+      String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+      parameters.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+    }
+    return parameters;
+  }
+
+  private static String required(Map<String, List<String>> parameters, String name) {
+    List<String> values = parameters.get(name);
+    if (values == null || values.isEmpty()) {
+      throw new IllegalArgumentException("Missing parameter " + name);
+    }
+    return values.get(0);
+  }
+
+  private static int intParameter(Map<String, List<String>> parameters, String name) {
+    List<String> values = parameters.get(name);
+    if (values == null || values.isEmpty()) {
+      return Integer.MAX_VALUE;
+    }
+    try {
+      return Integer.parseInt(values.get(0));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Parameter " + name + " is not a number: " + values.get(0));
+    }
+  }
+
+  private static void printUsage() {
+    System.out.println(
+        "Usage: java -cp java-dependency-analyzer.jar com.example.AnalyzerDaemon [--port N] [--threads N] [--jar-index-dir DIR] [--precision fast|balanced|full] [--skip-package PREFIX]... <project-source-root> <output-dir> [external-jar1] ...");
+  }
+
+  public static void main(String[] args) {
+    int port = DEFAULT_PORT;
+    int threads = 1;
+    Path jarIndexDir = JarIndex.DEFAULT_DIRECTORY;
+    Precision precision = Precision.FULL;
+    List<String> skippedPackages = new ArrayList<>();
+    List<String> positional = new ArrayList<>();
+    try {
+      for (int i = 0; i < args.length; i++) {
+        if (args[i].equals("--port")) {
+          port = CommandLineArgs.positiveInt(args, ++i);
+        } else if (args[i].equals("--threads")) {
+          threads = CommandLineArgs.positiveInt(args, ++i);
+        } else if (args[i].equals("--jar-index-dir")) {
+          jarIndexDir = Paths.get(CommandLineArgs.value(args, ++i));
+        } else if (args[i].equals("--precision")) {
+          precision = Precision.forName(CommandLineArgs.value(args, ++i));
+        } else if (args[i].equals("--skip-package")) {
+          skippedPackages.add(CommandLineArgs.value(args, ++i));
+        } else if (args[i].startsWith("--")) {
+          throw new IllegalArgumentException("Unknown option " + args[i]);
+        } else {
+          positional.add(args[i]);
+        }
+      }
+      if (port > 65535) {
+        throw new IllegalArgumentException("--port must be at most 65535: " + port);
+      }
+    } catch (IllegalArgumentException e) {
+      System.err.println("Error: " + e.getMessage());
+      printUsage();
+      return;
+    }
+    if (positional.size() < 2) {
+      printUsage();
+      return;
+    }
+    if (!skippedPackages.isEmpty()) {
+      precision = precision.withSkippedPackages(skippedPackages);
+    }
+
+    String projectRoot = positional.get(0);
+    String outputDir = positional.get(1);
+    List<String> externalJars = positional.subList(2, positional.size());
+    AnalyzerDaemon daemon;
+    try {
+      daemon =
+          new AnalyzerDaemon(
+              projectRoot,
+              outputDir,
+              new DependencyAnalyzer(
+                  projectRoot, externalJars, outputDir, jarIndexDir, precision));
+      daemon.load(threads);
+      daemon.serve(port);
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
+      e.printStackTrace();
+      return;
+    }
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread(
+                () -> {
+                  daemon.stop();
+                  daemon.save();
+                }));
+    System.out.println("AnalyzerDaemon: serving " + projectRoot + " on http://localhost:" + port);
+
+    try {
+      daemon.watch();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      System.err.println("Error: " + e.getMessage());
+      e.printStackTrace();
+    } finally {
+      daemon.stop();
+    }
+  }
+}
@@ -1,17 +1,82 @@
 package com.example;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public class AnalyzerEntry {
   public static void main(String[] args) {
-    if (args.length < 1) {
-      System.out.println(
-          "Usage: java DependencyAnalyzer <project-source-root> [external-jar1] [external-jar2] ...");
-      System.out.println("\nExample:");
-      System.out.println(
-          "  java DependencyAnalyzer /path/to/spring-petclinic/src/main/java spring-web.jar spring-data-commons.jar /path/to/output");
+    int threads = 1;
+    boolean full = false;
+    boolean binaryIndex = false;
+    boolean modules = false;
+    boolean perModule = false;
+    Path jfrFile = null;
+    ShardedOutput sharding = null;
+    long memoryLimit = 0;
+    Path jarIndexDir = JarIndex.DEFAULT_DIRECTORY;
+    Precision precision = Precision.FULL;
+    List<String> skippedPackages = new ArrayList<>();
+    List<String> extraRoots = new ArrayList<>();
+    List<String> positional = new ArrayList<>();
+    try {
+      for (int i = 0; i < args.length; i++) {
+        if (args[i].equals("--threads")) {
+          threads = CommandLineArgs.positiveInt(args, ++i);
+        } else if (args[i].equals("--jar-index-dir")) {
+          jarIndexDir = Paths.get(CommandLineArgs.value(args, ++i));
+        } else if (args[i].equals("--precision")) {
+          precision = Precision.forName(CommandLineArgs.value(args, ++i));
+        } else if (args[i].equals("--skip-package")) {
+          skippedPackages.add(CommandLineArgs.value(args, ++i));
+        } else if (args[i].equals("--memory-limit")) {
+          memoryLimit = ExternalSorter.parseSize(CommandLineArgs.value(args, ++i));
+        } else if (args[i].equals("--source-root")) {
+          extraRoots.add(CommandLineArgs.value(args, ++i));
+        } else if (args[i].equals("--modules")) {
+          modules = true;
+        } else if (args[i].equals("--per-module")) {
+          perModule = true;
+        } else if (args[i].equals("--shard-by")) {
+          sharding = ShardedOutput.forSpec(CommandLineArgs.value(args, ++i));
+        } else if (args[i].equals("--jfr")) {
+          jfrFile = Paths.get(CommandLineArgs.value(args, ++i));
+        } else if (args[i].equals("--binary-index")) {
+          binaryIndex = true;
+        } else if (args[i].equals("--full")) {
+          full = true;
+        } else if (args[i].startsWith("--")) {
+          throw new IllegalArgumentException("Unknown option " + args[i]);
+        } else {
+          positional.add(args[i]);
+        }
+      }
+      if (memoryLimit > 0 && sharding != null) {
+        throw new IllegalArgumentException("--shard-by cannot be combined with --memory-limit");
+      }
+      if (memoryLimit > 0 && perModule) {
+        throw new IllegalArgumentException("--per-module cannot be combined with --memory-limit");
+      }
+    } catch (IllegalArgumentException e) {
+      System.err.println("Error: " + e.getMessage());
+      printUsage();
+      // Scripts must not take the missing outputs for a successful run
+      System.exit(1);
+    }
+    args = positional.toArray(new String[0]);
+    if (!skippedPackages.isEmpty()) {
+      precision = precision.withSkippedPackages(skippedPackages);
+    }
+
+    if (args.length < 2) {
+      printUsage();
       return;
     }
 
@@ -20,34 +85,353 @@ public class AnalyzerEntry {
     List<String> externalJars = new ArrayList<>();
 
     // Collect external JARs from command line
-    for (int i = 1; i < args.length; i++) {
+    for (int i = 2; i < args.length; i++) {
       externalJars.add(args[i]);
     }
-    System.out.println("AnalyzerEntry: " + projectRoot + " " + outputDir + " " + externalJars);
-    // extract dependencies
+
+    // Source roots by module name; all of them are resolved against each other
+    Map<String, String> namedRoots = new LinkedHashMap<>();
+    try {
+      if (modules) {
+        MavenModules.sourceRoots(Paths.get(projectRoot))
+            .forEach((module, root) -> namedRoots.put(root.toString(), module));
+      } else {
+        namedRoots.put(projectRoot, moduleName(projectRoot));
+      }
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
+      e.printStackTrace();
+      return;
+    }
+    for (String root : extraRoots) {
+      namedRoots.putIfAbsent(root, moduleName(root));
+    }
+    Map<String, String> sourceRoots;
+    try {
+      sourceRoots = uniqueModuleNames(namedRoots);
+    } catch (IllegalArgumentException e) {
+      System.err.println("Error: " + e.getMessage());
+      return;
+    }
+    if (sourceRoots.isEmpty()) {
+      System.err.println("Error: no Maven module with sources below " + projectRoot);
+      return;
+    }
+    List<String> roots = new ArrayList<>(sourceRoots.values());
+    if (jfrFile != null) {
+      try {
+        Metrics.get().startRecording(jfrFile);
+      } catch (Exception e) {
+        System.err.println("Error: " + e.getMessage());
+      }
+    }
+    System.out.println(
+        "AnalyzerEntry: " + roots + " " + outputDir + " " + externalJars + " threads=" + threads
+            + " precision=" + precision);
+    DependencyAnalyzer dependencyAnalyzer;
+    try {
+      dependencyAnalyzer =
+          new DependencyAnalyzer(roots, externalJars, outputDir, jarIndexDir, precision);
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
+      e.printStackTrace();
+      return;
+    }
+    if (memoryLimit > 0) {
+      analyzeWithinLimit(dependencyAnalyzer, roots, outputDir, threads, memoryLimit, binaryIndex);
+      writeMetrics(outputDir);
+      return;
+    }
+    // one index for all roots, or one per module with its own output directory
+    Map<String, IncrementalIndex> indexes = new LinkedHashMap<>();
+    if (perModule) {
+      for (Map.Entry<String, String> e : sourceRoots.entrySet()) {
+        String moduleOutputDir = Paths.get(outputDir, e.getKey()).toString();
+        indexes.put(
+            moduleOutputDir, newIndex(List.of(e.getValue()), moduleOutputDir, dependencyAnalyzer));
+      }
+    } else {
+      indexes.put(outputDir, newIndex(roots, outputDir, dependencyAnalyzer));
+    }
+
+    // parse every changed source file once and feed all extractors
+    try {
+      List<Path> changed = new ArrayList<>();
+      for (IncrementalIndex index : indexes.values()) {
+        changed.addAll(index.prepare(full));
+      }
+      new AnalysisPipeline(dependencyAnalyzer.parserConfigurations(threads), threads)
+          .reuse(dependencyAnalyzer.getCompilationUnits())
+          .addVisitor(sourceFile -> route(indexes.values(), sourceFile))
+          .run(changed);
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
+      e.printStackTrace();
+      return;
+    }
+
+    System.out.println("Resolution cache: " + dependencyAnalyzer.getResolutionCache());
+    System.out.println("Compilation units: " + dependencyAnalyzer.getCompilationUnits());
+
+    for (Map.Entry<String, IncrementalIndex> e : indexes.entrySet()) {
+      writeOutputs(e.getValue(), e.getKey(), binaryIndex, sharding, threads);
+    }
+    writeMetrics(outputDir);
+  }
+
+  private static IncrementalIndex newIndex(
+      List<String> roots, String outputDir, DependencyAnalyzer dependencyAnalyzer) {
+    new File(outputDir).mkdirs();
+    return new IncrementalIndex(
+        roots, outputDir, dependencyAnalyzer,
+        new CodeExtractor(dependencyAnalyzer.getTypeNameResolver()),
+        new APIExtractor(dependencyAnalyzer.getTypeNameResolver()));
+  }
+
+  // Hands a parsed file to the index of the module it belongs to
+  private static void route(Iterable<IncrementalIndex> indexes, SourceFile sourceFile)
+      throws Exception {
+    for (IncrementalIndex index : indexes) {
+      if (index.contains(sourceFile.path)) {
+        index.visit(sourceFile);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Keys source roots, given with their preferred module names, by a name unique among them. Roots
+   * whose names clash, like two .../src/test/java roots, are keyed by their path relative to the
+   * common parent of all roots instead. A root given twice is kept once.
+   */
+  static Map<String, String> uniqueModuleNames(Map<String, String> namedRoots) {
+    Map<Path, String> names = new LinkedHashMap<>();
+    Map<String, Integer> uses = new HashMap<>();
+    for (Map.Entry<String, String> e : namedRoots.entrySet()) {
+      Path root = Paths.get(e.getKey()).toAbsolutePath().normalize();
+      if (names.putIfAbsent(root, e.getValue()) == null) {
+        uses.merge(e.getValue(), 1, Integer::sum);
+      }
+    }
+    Map<String, String> sourceRoots = new LinkedHashMap<>();
+    if (names.isEmpty()) {
+      return sourceRoots;
+    }
+    Path common = IncrementalIndex.commonParent(new ArrayList<>(names.keySet()));
+    for (Map.Entry<Path, String> e : names.entrySet()) {
+      String name = e.getValue();
+      if (uses.get(name) > 1) {
+        name = common.relativize(e.getKey()).toString().replace('\\', '/');
+      }
+      // Only a root nested in another one can still clash
+      if (name.isEmpty() || sourceRoots.containsKey(name)) {
+        throw new IllegalArgumentException(
+            "Source root " + e.getKey() + " has no module name distinct from the other roots");
+      }
+      sourceRoots.put(name, e.getKey().toString());
+    }
+    return sourceRoots;
+  }
+
+  // Module directory of a source root: the parent of src/main/java, or the root itself
+  private static String moduleName(String root) {
+    Path path = Paths.get(root).toAbsolutePath().normalize();
+    if (path.endsWith(Paths.get("src", "main", "java")) && path.getNameCount() > 3) {
+      path = path.getParent().getParent().getParent();
+    }
+    return String.valueOf(path.getFileName());
+  }
+
+  // Full analysis with results spilled to sorted runs once they exceed the memory limit
+  private static void analyzeWithinLimit(
+      DependencyAnalyzer dependencyAnalyzer,
+      List<String> roots,
+      String outputDir,
+      int threads,
+      long memoryLimit,
+      boolean binaryIndex) {
+    try (SpillingIndex index =
+        new SpillingIndex(
+            outputDir, memoryLimit, dependencyAnalyzer,
+            new CodeExtractor(dependencyAnalyzer.getTypeNameResolver()),
+            new APIExtractor(dependencyAnalyzer.getTypeNameResolver()))) {
+      new AnalysisPipeline(dependencyAnalyzer.parserConfigurations(threads), threads)
+          .reuse(dependencyAnalyzer.getCompilationUnits())
+          .addVisitor(index)
+          .run(AnalysisPipeline.findJavaFiles(
+              roots.stream().map(Paths::get).collect(Collectors.toList())));
+      System.out.println("Resolution cache: " + dependencyAnalyzer.getResolutionCache());
+      System.out.println("Spilled runs: " + index.runCount());
+      index.writeOutputs(binaryIndex);
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
+      e.printStackTrace();
+    }
+  }
+
+  // timings, counters and latency histograms of this run
+  private static void writeMetrics(String outputDir) {
+    try {
+      Metrics.get().writeJson(Paths.get(outputDir, "metrics.json"));
+      Metrics.get().stopRecording();
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
+      e.printStackTrace();
+    }
+    System.out.println("Metrics: " + Metrics.get());
+  }
+
+  private static void printUsage() {
+    System.out.println(
+        "Usage: java DependencyAnalyzer [--threads N] [--full] [--binary-index] [--jar-index-dir DIR] [--jfr FILE] [--precision fast|balanced|full] [--skip-package PREFIX]... [--memory-limit SIZE] [--shard-by package:N|hash:N] [--source-root DIR]... [--modules] [--per-module] <project-source-root> <output-dir> [external-jar1] [external-jar2] ...");
+    System.out.println("\nExample:");
+    System.out.println(
+        "  java DependencyAnalyzer --threads 8 /path/to/spring-petclinic/src/main/java /path/to/output spring-web.jar spring-data-commons.jar");
+  }
+
+  /** Writes every output file of {@code index}; one failing file does not stop the others. */
+  static void writeOutputs(IncrementalIndex index, String outputDir, boolean binaryIndex) {
+    writeOutputs(index, outputDir, binaryIndex, null, 1);
+  }
+
+  /**
+   * Writes the output files of {@code index}, whose call graph {@code graph} is, except the
+   * schedule: clustering is too slow to repeat on every save, and {@link GenerationSchedule#main}
+   * computes it from the outputs on demand. A schedule of an earlier run is deleted.
+   */
+  static void writeOutputsWithoutSchedule(
+      IncrementalIndex index, CallGraph graph, String outputDir, boolean binaryIndex) {
+    Metrics.Timer timer = Metrics.get().time(Metrics.WRITE);
+    try {
+      writeOutputFiles(index, graph, outputDir, binaryIndex, null, 1, false);
+    } finally {
+      timer.close();
+    }
+  }
+
+  /**
+   * Writes every output file of {@code index}, with dependencies and code split into shards by
+   * {@code sharding} on {@code threads} writers unless it is null.
+   */
+  static void writeOutputs(
+      IncrementalIndex index,
+      String outputDir,
+      boolean binaryIndex,
+      ShardedOutput sharding,
+      int threads) {
+    Metrics.Timer timer = Metrics.get().time(Metrics.WRITE);
+    try {
+      // Built once: every output below reads it
+      writeOutputFiles(
+          index, index.getCallGraph(), outputDir, binaryIndex, sharding, threads, true);
+    } finally {
+      timer.close();
+    }
+  }
+
+  private static void writeOutputFiles(
+      IncrementalIndex index,
+      CallGraph graph,
+      String outputDir,
+      boolean binaryIndex,
+      ShardedOutput sharding,
+      int threads,
+      boolean schedule) {
+    // write dependencies and code as shards, in parallel
+    if (sharding != null) {
+      try {
+        sharding.write(Paths.get(outputDir), graph, index.getCodeMap(), threads);
+      } catch (Exception e) {
+        System.err.println("Error: " + e.getMessage());
+        e.printStackTrace();
+      }
+    } else {
+      // shards of an earlier run would shadow the files written below
+      try {
+        ShardedOutput.deleteShards(Paths.get(outputDir));
+      } catch (Exception e) {
+        System.err.println("Error: " + e.getMessage());
+        e.printStackTrace();
+      }
+    }
+
+    // write dependencies
+    if (sharding == null) {
+      try {
+        MethodDependencyWriter.writeAsJson(graph, outputDir + "/dependencies.json");
+      } catch (Exception e) {
+        System.err.println("Error: " + e.getMessage());
+        e.printStackTrace();
+      }
+    }
+    // write the reverse (callers-of) index
+    try {
+      MethodDependencyWriter.writeCallersAsJson(graph, outputDir + "/callers.json");
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
+      e.printStackTrace();
+    }
+    // write code
+    if (sharding == null) {
+      try {
+        MethodCodeWriter.writeAsJson(index.getCodeMap(), outputDir + "/code.json");
+      } catch (Exception e) {
+        System.err.println("Error: " + e.getMessage());
+        e.printStackTrace();
+      }
+    }
+
+    // write API endpoints
+    try {
+      APIEndpointWriter.writeAsJson(
+          index.getEndpoints(), Paths.get(outputDir, APIEndpoint.FILE).toString());
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
+      e.printStackTrace();
+    }
+
+    // write the layering and endpoint clusters for test generation, or drop an outdated one
     try {
-      DependencyAnalyzer analyzer = new DependencyAnalyzer(projectRoot, externalJars, outputDir);
-      Map<String, List<MethodMetadata>> dependencies = analyzer.analyzeProject(projectRoot);
-      MethodDependencyWriter.writeAsJson(dependencies, outputDir + "/dependencies.json");
+      if (schedule) {
+        new GenerationSchedule(graph, index.getEndpoints())
+            .writeJson(Paths.get(outputDir, GenerationSchedule.FILE));
+      } else {
+        Files.deleteIfExists(Paths.get(outputDir, GenerationSchedule.FILE));
+      }
     } catch (Exception e) {
       System.err.println("Error: " + e.getMessage());
       e.printStackTrace();
     }
-    // extract code
+
+    // write the edges the precision tier named without the solver
     try {
-      CodeExtractor extractor = new CodeExtractor();
-      Map<String, String> codeMap = extractor.analyzeProject(projectRoot);
-      MethodCodeWriter.writeAsJson(codeMap, outputDir + "/code.json");
+      index.getDegradedEdges().writeJson(Paths.get(outputDir, DegradedEdges.FILE));
     } catch (Exception e) {
       System.err.println("Error: " + e.getMessage());
       e.printStackTrace();
     }
 
-    // extract API endpoints
+    // write the count and positions of the calls behind each edge
+    try {
+      index.getCallSites().writeJson(Paths.get(outputDir, CallSites.FILE));
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
+      e.printStackTrace();
+    }
+
+    // write the optional memory-mappable index
+    if (binaryIndex) {
+      try {
+        BinaryIndexWriter.write(graph, index.getCodeMap(), outputDir + "/index.bin");
+      } catch (Exception e) {
+        System.err.println("Error: " + e.getMessage());
+        e.printStackTrace();
+      }
+    }
+
+    // write the manifest last so an interrupted run is re-done in full
     try {
-      APIExtractor extractor = new APIExtractor();
-      List<APIEndpoint> apiEndpoints = extractor.analyseProject(projectRoot);
-      APIEndpointWriter.writeAsJson(apiEndpoints, outputDir + "/api_endpoints.json");
+      index.writeManifest();
     } catch (Exception e) {
       System.err.println("Error: " + e.getMessage());
       e.printStackTrace();
@@ -0,0 +1,24 @@
+package com.example;
+
+import com.github.javaparser.ast.Node;
+import java.util.Optional;
+
+/**
+ * Single-type ancestor lookup. {@code Node.findAncestor(Class...)} takes generic varargs, so every
+ * call creates a generic array and draws an unchecked warning.
+ */
+final class Ancestors {
+  private Ancestors() {}
+
+  /** The nearest proper ancestor of {@code node} that is a {@code type}. */
+  static <N> Optional<N> nearest(Node node, Class<N> type) {
+    for (Node parent = node.getParentNode().orElse(null);
+        parent != null;
+        parent = parent.getParentNode().orElse(null)) {
+      if (type.isInstance(parent)) {
+        return Optional.of(type.cast(parent));
+      }
+    }
+    return Optional.empty();
+  }
+}
@@ -0,0 +1,146 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Tells without parsing whether a source file may use one of a set of annotations, by scanning its
+ * bytes for {@code @Name} or {@code @qualified.Name}. Comments and string literals are scanned too,
+ * so the answer errs towards yes; a no is certain, unless the file spells {@code @} as a unicode
+ * escape.
+ *
+ * <p>A scanner can also be given keywords, such as {@code extends}, that count as a use wherever
+ * they appear as a word.
+ *
+ * <p>Small files are read into a heap buffer, larger ones are memory-mapped. Annotation names are
+ * ASCII, so the UTF-8 bytes can be matched without decoding.
+ */
+public class AnnotationScanner {
+  // Mapping pays off only once copying the file costs more than setting up the mapping
+  private static final long MAP_THRESHOLD = 64 * 1024;
+
+  private final Set<String> names;
+  private final int maxLength;
+  private final Set<String> keywords;
+  private final int maxKeywordLength;
+
+  /** @param names simple names of the annotations to look for */
+  public AnnotationScanner(Set<String> names) {
+    this(names, Set.of());
+  }
+
+  /**
+   * @param names simple names of the annotations to look for
+   * @param keywords words whose use counts as a use of the annotations
+   */
+  public AnnotationScanner(Set<String> names, Set<String> keywords) {
+    this.names = names;
+    this.maxLength = names.stream().mapToInt(String::length).max().orElse(0);
+    this.keywords = keywords;
+    this.maxKeywordLength = keywords.stream().mapToInt(String::length).max().orElse(0);
+  }
+
+  /** True if {@code file} may use one of the annotations; also true if it cannot be read. */
+  public boolean mayUse(Path file) {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      ByteBuffer bytes =
+          size >= MAP_THRESHOLD
+              ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+              : ByteBuffer.wrap(Files.readAllBytes(file));
+      return mayUse(bytes);
+    } catch (IOException e) {
+      // Let the parser report the file
+      return true;
+    }
+  }
+
+  /** True if the UTF-8 source in {@code bytes} may use one of the annotations. */
+  public boolean mayUse(ByteBuffer bytes) {
+    return scan(bytes.position(), bytes.limit(), i -> bytes.get(i));
+  }
+
+  /** True if the source text {@code content} may use one of the annotations. */
+  public boolean mayUse(CharSequence content) {
+    return scan(0, content.length(), content::charAt);
+  }
+
+  // Characters are read through at(i); anything above ASCII counts as part of an identifier
+  private boolean scan(int start, int limit, IntUnaryOperator at) {
+    StringBuilder name = new StringBuilder(maxLength + 1);
+    for (int i = start; i < limit; i++) {
+      int c0 = at.applyAsInt(i);
+      if (c0 != '@') {
+        if (maxKeywordLength > 0 && isIdentifierPart(c0)) {
+          // Read the whole word, so keywords only match on their own
+          name.setLength(0);
+          int j = i;
+          while (j < limit && isIdentifierPart(at.applyAsInt(j))) {
+            if (name.length() <= maxKeywordLength) {
+              name.append((char) at.applyAsInt(j));
+            }
+            j++;
+          }
+          if (keywords.contains(name.toString())) {
+            return true;
+          }
+          i = j - 1;
+        }
+        continue;
+      }
+      // Read the possibly qualified name after '@', keeping only its last segment
+      int j = skipSpace(at, i + 1, limit);
+      name.setLength(0);
+      while (j < limit) {
+        int c = at.applyAsInt(j);
+        if (isIdentifierPart(c)) {
+          if (name.length() <= maxLength) {
+            name.append((char) c);
+          }
+          j++;
+          continue;
+        }
+        int next = skipSpace(at, j, limit);
+        if (next < limit && at.applyAsInt(next) == '.') {
+          name.setLength(0);
+          j = skipSpace(at, next + 1, limit);
+        } else {
+          break;
+        }
+      }
+      if (names.contains(name.toString())) {
+        return true;
+      }
+      i = Math.max(i, j - 1);
+    }
+    return false;
+  }
+
+  private static int skipSpace(IntUnaryOperator at, int i, int limit) {
+    while (i < limit && isSpace(at.applyAsInt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static boolean isSpace(int c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+  }
+
+  // Non-ASCII bytes and chars belong to identifiers, so "@RestControllerX" is not a match
+  private static boolean isIdentifierPart(int c) {
+    return (c >= 'a' && c <= 'z')
+        || (c >= 'A' && c <= 'Z')
+        || (c >= '0' && c <= '9')
+        || c == '_'
+        || c == '$'
+        || c < 0
+        || c > 127;
+  }
+}
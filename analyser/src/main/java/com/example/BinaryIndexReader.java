@@ -0,0 +1,187 @@
+package com.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Random-access reader for files written by {@link BinaryIndexWriter}.
+ *
+ * <p>Opening only maps the file; lookups binary-search the sorted signature table in O(log n) and
+ * decode just the strings they return. Instances are safe for concurrent readers.
+ */
+public class BinaryIndexReader implements Closeable {
+  // Code can exceed the 2 GB limit of a single mapping, so it is mapped in windows
+  private static final long CODE_WINDOW = 1L << 30;
+
+  private final FileChannel channel;
+  private final int symbolCount;
+  private final int edgeCount;
+  private final ByteBuffer signatureOffsets;
+  private final ByteBuffer signatureData;
+  private final ByteBuffer flags;
+  private final ByteBuffer edgeOffsets;
+  private final ByteBuffer edgeTargets;
+  private final ByteBuffer codeOffsets;
+  private final ByteBuffer[] codeWindows;
+
+  public BinaryIndexReader(String filePath) throws IOException {
+    this(Paths.get(filePath));
+  }
+
+  public BinaryIndexReader(Path file) throws IOException {
+    channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      if (channel.size() < BinaryIndexWriter.HEADER_SIZE) {
+        throw new IOException("Not a binary index: " + file);
+      }
+      ByteBuffer header = map(0, BinaryIndexWriter.HEADER_SIZE);
+      if (header.getInt(0) != BinaryIndexWriter.MAGIC) {
+        throw new IOException("Not a binary index: " + file);
+      }
+      if (header.getInt(4) != BinaryIndexWriter.VERSION) {
+        throw new IOException("Unsupported binary index version " + header.getInt(4));
+      }
+      symbolCount = header.getInt(8);
+      edgeCount = header.getInt(12);
+      long[] regions = new long[8];
+      for (int i = 0; i < regions.length; i++) {
+        regions[i] = header.getLong(16 + i * 8);
+      }
+      signatureOffsets = map(regions[0], regions[1] - regions[0]);
+      signatureData = map(regions[1], regions[2] - regions[1]);
+      flags = map(regions[2], regions[3] - regions[2]);
+      edgeOffsets = map(regions[3], regions[4] - regions[3]);
+      edgeTargets = map(regions[4], regions[5] - regions[4]);
+      codeOffsets = map(regions[6], regions[7] - regions[6]);
+      long codeLength = regions[6] - regions[5];
+      codeWindows = new ByteBuffer[(int) ((codeLength + CODE_WINDOW - 1) / CODE_WINDOW)];
+      for (int i = 0; i < codeWindows.length; i++) {
+        long start = i * CODE_WINDOW;
+        codeWindows[i] = map(regions[5] + start, Math.min(CODE_WINDOW, codeLength - start));
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  public int size() {
+    return symbolCount;
+  }
+
+  public int edgeCount() {
+    return edgeCount;
+  }
+
+  /** Returns the id of {@code signature}, or -1 if the index does not contain it. */
+  public int find(String signature) {
+    byte[] key = signature.getBytes(StandardCharsets.UTF_8);
+    int low = 0;
+    int high = symbolCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compare(mid, key);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  public String signature(int id) {
+    int from = signatureOffsets.getInt(id * 4);
+    int to = signatureOffsets.getInt((id + 1) * 4);
+    byte[] bytes = new byte[to - from];
+    ByteBuffer slice = signatureData.duplicate();
+    slice.position(from);
+    slice.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /** Metadata of {@code signature}, or null if the index does not contain it. */
+  public MethodMetadata lookup(String signature) {
+    return find(signature) < 0 ? null : MethodMetadata.parse(signature);
+  }
+
+  /** Signatures called by {@code signature}, or an empty list if it was not analysed. */
+  public List<String> callees(String signature) {
+    int id = find(signature);
+    if (id < 0 || (flags.get(id) & BinaryIndexWriter.FLAG_CALLER) == 0) {
+      return Collections.emptyList();
+    }
+    int from = edgeOffsets.getInt(id * 4);
+    int to = edgeOffsets.getInt((id + 1) * 4);
+    List<String> callees = new ArrayList<>(to - from);
+    for (int i = from; i < to; i++) {
+      callees.add(signature(edgeTargets.getInt(i * 4)));
+    }
+    return callees;
+  }
+
+  public List<MethodMetadata> dependencies(String signature) {
+    List<MethodMetadata> deps = new ArrayList<>();
+    for (String callee : callees(signature)) {
+      deps.add(MethodMetadata.parse(callee));
+    }
+    return deps;
+  }
+
+  /** Source code of {@code signature}, or null if none was extracted. */
+  public String code(String signature) {
+    int id = find(signature);
+    if (id < 0 || (flags.get(id) & BinaryIndexWriter.FLAG_CODE) == 0) {
+      return null;
+    }
+    long from = codeOffsets.getLong(id * 8);
+    long to = codeOffsets.getLong((id + 1) * 8);
+    byte[] bytes = new byte[(int) (to - from)];
+    int copied = 0;
+    while (copied < bytes.length) {
+      long position = from + copied;
+      ByteBuffer window = codeWindows[(int) (position / CODE_WINDOW)].duplicate();
+      window.position((int) (position % CODE_WINDOW));
+      int n = Math.min(bytes.length - copied, window.remaining());
+      window.get(bytes, copied, n);
+      copied += n;
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private int compare(int id, byte[] key) {
+    int from = signatureOffsets.getInt(id * 4);
+    int length = signatureOffsets.getInt((id + 1) * 4) - from;
+    int n = Math.min(length, key.length);
+    for (int i = 0; i < n; i++) {
+      int cmp = (signatureData.get(from + i) & 0xff) - (key[i] & 0xff);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return length - key.length;
+  }
+
+  private ByteBuffer map(long position, long size) throws IOException {
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Index region too large to map: " + size + " bytes");
+    }
+    return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+  }
+}
@@ -0,0 +1,174 @@
+package com.example;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes dependencies and code into one binary index file that {@link BinaryIndexReader} can
+ * memory-map and query without loading it.
+ *
+ * <p>Layout (big-endian), version 1:
+ *
+ * <pre>
+ * header          magic, version, symbolCount, edgeCount, then the long position of every region
+ * signatures      (symbolCount + 1) int offsets, then UTF-8 signature bytes sorted bytewise
+ * flags           one byte per signature: bit 0 = analysed caller, bit 1 = has code
+ * edges           (symbolCount + 1) int offsets, then edgeCount int callee ids
+ * code            UTF-8 code bytes in signature order, then (symbolCount + 1) long offsets
+ * </pre>
+ */
+public class BinaryIndexWriter {
+  static final int MAGIC = 0x4a504149; // "JPAI"
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 80;
+  static final byte FLAG_CALLER = 1;
+  static final byte FLAG_CODE = 2;
+
+  /** Writes {@code graph} and {@code codeMap} to {@code filePath}. */
+  public static void write(CallGraph graph, Map<String, String> codeMap, String filePath)
+      throws IOException {
+    // Every signature that is a caller, a callee or has code gets exactly one sorted id
+    Map<String, Integer> unique = new HashMap<>();
+    for (int id = 0; id < graph.size(); id++) {
+      unique.putIfAbsent(graph.signature(id), unique.size());
+    }
+    for (String key : codeMap.keySet()) {
+      unique.putIfAbsent(key, unique.size());
+    }
+    int n = unique.size();
+    String[] signatures = new String[n];
+    byte[][] encoded = new byte[n][];
+    for (Map.Entry<String, Integer> e : unique.entrySet()) {
+      signatures[e.getValue()] = e.getKey();
+      encoded[e.getValue()] = e.getKey().getBytes(StandardCharsets.UTF_8);
+    }
+    Integer[] order = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(encoded[a], encoded[b]));
+    int[] sortedId = new int[n];
+    for (int i = 0; i < n; i++) {
+      sortedId[order[i]] = i;
+    }
+    int[] graphToSorted = new int[graph.size()];
+    for (int id = 0; id < graph.size(); id++) {
+      graphToSorted[id] = sortedId[unique.get(graph.signature(id))];
+    }
+    int[] sortedToGraph = new int[n];
+    Arrays.fill(sortedToGraph, -1);
+    for (int id = 0; id < graph.size(); id++) {
+      if (graph.isCaller(id)) {
+        sortedToGraph[graphToSorted[id]] = id;
+      }
+    }
+
+    Path file = Paths.get(filePath);
+    Path parentDir = file.toAbsolutePath().getParent();
+    if (parentDir != null) {
+      Files.createDirectories(parentDir);
+    }
+    long[] regions = new long[8];
+    int edges = 0;
+    try (CountingOutputStream counter =
+            new CountingOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        DataOutputStream out = new DataOutputStream(counter)) {
+      out.write(new byte[HEADER_SIZE]);
+
+      regions[0] = counter.position;
+      int offset = 0;
+      out.writeInt(offset);
+      for (int i = 0; i < n; i++) {
+        offset += encoded[order[i]].length;
+        out.writeInt(offset);
+      }
+      regions[1] = counter.position;
+      for (int i = 0; i < n; i++) {
+        out.write(encoded[order[i]]);
+      }
+
+      regions[2] = counter.position;
+      for (int i = 0; i < n; i++) {
+        byte flags = 0;
+        if (sortedToGraph[i] >= 0) flags |= FLAG_CALLER;
+        if (codeMap.containsKey(signatures[order[i]])) flags |= FLAG_CODE;
+        out.writeByte(flags);
+      }
+
+      regions[3] = counter.position;
+      out.writeInt(edges);
+      for (int i = 0; i < n; i++) {
+        edges += sortedToGraph[i] >= 0 ? graph.calleeCount(sortedToGraph[i]) : 0;
+        out.writeInt(edges);
+      }
+      regions[4] = counter.position;
+      for (int i = 0; i < n; i++) {
+        int caller = sortedToGraph[i];
+        if (caller < 0) continue;
+        for (int c = 0; c < graph.calleeCount(caller); c++) {
+          out.writeInt(graphToSorted[graph.callee(caller, c)]);
+        }
+      }
+
+      regions[5] = counter.position;
+      long[] codeOffsets = new long[n + 1];
+      for (int i = 0; i < n; i++) {
+        String code = codeMap.get(signatures[order[i]]);
+        if (code != null) {
+          out.write(code.getBytes(StandardCharsets.UTF_8));
+        }
+        codeOffsets[i + 1] = counter.position - regions[5];
+      }
+      regions[6] = counter.position;
+      for (long codeOffset : codeOffsets) {
+        out.writeLong(codeOffset);
+      }
+      out.flush();
+      regions[7] = counter.position;
+    }
+
+    // The header is written last, so a partially written file never looks valid
+    try (RandomAccessFile header = new RandomAccessFile(file.toFile(), "rw")) {
+      header.writeInt(MAGIC);
+      header.writeInt(VERSION);
+      header.writeInt(n);
+      header.writeInt(edges);
+      for (long region : regions) {
+        header.writeLong(region);
+      }
+    }
+  }
+
+  // Tracks the file position past 2 GB, which DataOutputStream.size() cannot
+  private static class CountingOutputStream extends FilterOutputStream {
+    long position = 0;
+
+    CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      position++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      position += len;
+    }
+  }
+}
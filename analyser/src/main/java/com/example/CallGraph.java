@@ -0,0 +1,261 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable method call graph over interned signatures, stored as compressed sparse rows: the
+ * callees of method {@code m} are {@code targets[offsets[m]] .. targets[offsets[m + 1] - 1]}.
+ *
+ * <p>Only methods that were analysed as callers have an entry in dependencies.json; methods that
+ * only appear as callees have an id but no row. {@link MethodMetadata} objects are created only by
+ * the conversion methods at the end of this class.
+ */
+public class CallGraph {
+  private final SymbolTable symbols;
+  private final String[] names;
+  final int[] offsets;
+  final int[] targets;
+  private final BitSet callers;
+  // Reverse CSR (callee -> distinct callers), built on first use
+  private volatile int[][] reverse;
+  // "package.Class.method" -> analysed overloads, built on first use
+  private volatile Map<String, List<Integer>> overloads;
+
+  private CallGraph(
+      SymbolTable symbols, String[] names, int[] offsets, int[] targets, BitSet callers) {
+    this.symbols = symbols;
+    this.names = names;
+    this.offsets = offsets;
+    this.targets = targets;
+    this.callers = callers;
+  }
+
+  /** Number of interned signatures, callers and callees alike. */
+  public int size() {
+    return names.length;
+  }
+
+  public int edgeCount() {
+    return targets.length;
+  }
+
+  public int callerCount() {
+    return callers.cardinality();
+  }
+
+  public String signature(int id) {
+    return names[id];
+  }
+
+  /** Returns the id of {@code signature}, or -1 if it is not in the graph. */
+  public int id(String signature) {
+    int id = symbols.lookup(signature);
+    return id < names.length ? id : -1;
+  }
+
+  /** True if the method was analysed, i.e. it has a (possibly empty) list of callees. */
+  public boolean isCaller(int id) {
+    return callers.get(id);
+  }
+
+  /** The first analysed method id at or after {@code fromId}, or -1 if there is none. */
+  public int nextCaller(int fromId) {
+    return callers.nextSetBit(fromId);
+  }
+
+  public int calleeCount(int id) {
+    return offsets[id + 1] - offsets[id];
+  }
+
+  public int callee(int id, int index) {
+    return targets[offsets[id] + index];
+  }
+
+  /** Number of distinct analysed methods that call {@code id}. */
+  public int callerCountOf(int id) {
+    int[] offsets = reverse()[0];
+    return offsets[id + 1] - offsets[id];
+  }
+
+  public int callerOf(int id, int index) {
+    int[][] reverse = reverse();
+    return reverse[1][reverse[0][id] + index];
+  }
+
+  /**
+   * Finds the analysed method for {@code signature}. If the exact key is unknown, falls back to
+   * the single overload with the same name and parameter count, since endpoint and code keys may
+   * spell parameter types differently from resolved dependency keys. Returns -1 if none matches.
+   */
+  public int findCaller(String signature) {
+    int id = id(signature);
+    if (id >= 0 && isCaller(id)) {
+      return id;
+    }
+    MethodMetadata wanted = MethodMetadata.parse(signature);
+    List<Integer> candidates = overloads().get(wanted.getFullyQualifiedName());
+    if (candidates == null) {
+      return -1;
+    }
+    int match = -1;
+    for (int candidate : candidates) {
+      if (MethodMetadata.parse(names[candidate]).parameterTypes.size()
+          == wanted.parameterTypes.size()) {
+        if (match >= 0) {
+          return -1;
+        }
+        match = candidate;
+      }
+    }
+    return match;
+  }
+
+  private Map<String, List<Integer>> overloads() {
+    Map<String, List<Integer>> map = overloads;
+    if (map == null) {
+      map = new HashMap<>();
+      for (int id = nextCaller(0); id >= 0; id = nextCaller(id + 1)) {
+        map.computeIfAbsent(names[id].substring(0, names[id].indexOf('(')), k -> new ArrayList<>())
+            .add(id);
+      }
+      overloads = map;
+    }
+    return map;
+  }
+
+  private int[][] reverse() {
+    int[][] result = reverse;
+    if (result != null) {
+      return result;
+    }
+    // Callers are visited in id order, so a repeated call shows up as the same last caller
+    int[] lastCaller = new int[names.length];
+    Arrays.fill(lastCaller, -1);
+    int[] reverseOffsets = new int[names.length + 1];
+    for (int caller = nextCaller(0); caller >= 0; caller = nextCaller(caller + 1)) {
+      for (int i = offsets[caller]; i < offsets[caller + 1]; i++) {
+        if (lastCaller[targets[i]] != caller) {
+          lastCaller[targets[i]] = caller;
+          reverseOffsets[targets[i] + 1]++;
+        }
+      }
+    }
+    for (int i = 0; i < names.length; i++) {
+      reverseOffsets[i + 1] += reverseOffsets[i];
+    }
+    int[] sources = new int[reverseOffsets[names.length]];
+    int[] fill = Arrays.copyOf(reverseOffsets, names.length);
+    Arrays.fill(lastCaller, -1);
+    for (int caller = nextCaller(0); caller >= 0; caller = nextCaller(caller + 1)) {
+      for (int i = offsets[caller]; i < offsets[caller + 1]; i++) {
+        if (lastCaller[targets[i]] != caller) {
+          lastCaller[targets[i]] = caller;
+          sources[fill[targets[i]]++] = caller;
+        }
+      }
+    }
+    result = new int[][] {reverseOffsets, sources};
+    reverse = result;
+    return result;
+  }
+
+  /** Callees of {@code signature} as metadata, or an empty list if it was not analysed. */
+  public List<MethodMetadata> dependencies(String signature) {
+    int id = id(signature);
+    if (id < 0 || !isCaller(id)) {
+      return Collections.emptyList();
+    }
+    List<MethodMetadata> deps = new ArrayList<>(calleeCount(id));
+    for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+      deps.add(MethodMetadata.parse(names[targets[i]]));
+    }
+    return deps;
+  }
+
+  /** The whole graph in the map form of {@link DependencyAnalyzer#analyzeCompilationUnit}. */
+  public Map<String, List<MethodMetadata>> toDependencyMap() {
+    Map<String, List<MethodMetadata>> map = new LinkedHashMap<>();
+    for (int id = nextCaller(0); id >= 0; id = nextCaller(id + 1)) {
+      map.put(names[id], dependencies(names[id]));
+    }
+    return map;
+  }
+
+  /** Loads a graph from a dependencies.json file written by {@link MethodDependencyWriter}. */
+  @SuppressWarnings("unchecked")
+  public static CallGraph readJson(String filePath) throws IOException {
+    Builder builder = new Builder();
+    Map<String, Object> json = (Map<String, Object>) JsonReader.read(Paths.get(filePath));
+    for (Map.Entry<String, Object> e : json.entrySet()) {
+      builder.put(e.getKey(), (List<String>) (List<?>) e.getValue());
+    }
+    return builder.build();
+  }
+
+  /**
+   * Collects caller rows while files are analysed. Rows are keyed by interned id and hold primitive
+   * callee arrays; a later row for the same caller replaces the earlier one. Thread-safe.
+   */
+  public static class Builder {
+    private final SymbolTable symbols = new SymbolTable();
+    private final ConcurrentHashMap<Integer, int[]> rows = new ConcurrentHashMap<>();
+
+    public void put(String caller, List<String> callees) {
+      int[] row = new int[callees.size()];
+      for (int i = 0; i < row.length; i++) {
+        row[i] = symbols.intern(callees.get(i));
+      }
+      rows.put(symbols.intern(caller), row);
+    }
+
+    public void remove(String caller) {
+      int id = symbols.lookup(caller);
+      if (id >= 0) {
+        rows.remove(id);
+      }
+    }
+
+    public void clear() {
+      rows.clear();
+    }
+
+    public boolean contains(String caller) {
+      int id = symbols.lookup(caller);
+      return id >= 0 && rows.containsKey(id);
+    }
+
+    /** Freezes the rows collected so far into an immutable graph. */
+    public CallGraph build() {
+      Map<Integer, int[]> rows = new HashMap<>(this.rows);
+      String[] names = symbols.snapshot();
+      int[] offsets = new int[names.length + 1];
+      BitSet callers = new BitSet(names.length);
+      for (Map.Entry<Integer, int[]> row : rows.entrySet()) {
+        int id = row.getKey();
+        if (id < names.length) {
+          offsets[id + 1] = row.getValue().length;
+          callers.set(id);
+        }
+      }
+      for (int i = 0; i < names.length; i++) {
+        offsets[i + 1] += offsets[i];
+      }
+      int[] targets = new int[offsets[names.length]];
+      for (int id = callers.nextSetBit(0); id >= 0; id = callers.nextSetBit(id + 1)) {
+        int[] row = rows.get(id);
+        System.arraycopy(row, 0, targets, offsets[id], row.length);
+      }
+      return new CallGraph(symbols, names, offsets, targets, callers);
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Where each caller calls each of its distinct callees, by caller signature. dependencies.json
+ * lists a callee once per caller however often it is called; the count and the line and column of
+ * every call are written as call_sites.json. Thread-safe.
+ */
+public class CallSites {
+  public static final String FILE = "call_sites.json";
+
+  /** The calls of one caller to one callee. */
+  public static class Edge {
+    public final String callee;
+    // Line and column of each call, in source order: line0, column0, line1, column1, ...
+    private final int[] positions;
+
+    public Edge(String callee, int[] positions) {
+      this.callee = callee;
+      this.positions = positions;
+    }
+
+    public int count() {
+      return positions.length / 2;
+    }
+
+    public int line(int call) {
+      return positions[2 * call];
+    }
+
+    public int column(int call) {
+      return positions[2 * call + 1];
+    }
+
+    /** Compact "line:column,line:column" form used in call_sites.json. */
+    public String sites() {
+      StringBuilder sb = new StringBuilder(positions.length * 4);
+      for (int i = 0; i < positions.length; i += 2) {
+        if (i > 0) {
+          sb.append(',');
+        }
+        sb.append(positions[i]).append(':').append(positions[i + 1]);
+      }
+      return sb.toString();
+    }
+
+    static int[] parseSites(String sites) {
+      if (sites.isEmpty()) {
+        return new int[0];
+      }
+      String[] parts = sites.split(",");
+      int[] positions = new int[parts.length * 2];
+      for (int i = 0; i < parts.length; i++) {
+        int colon = parts[i].indexOf(':');
+        positions[2 * i] = Integer.parseInt(parts[i].substring(0, colon));
+        positions[2 * i + 1] = Integer.parseInt(parts[i].substring(colon + 1));
+      }
+      return positions;
+    }
+
+    /** Single-string form for {@link ExternalSorter} runs; see {@link #decode}. */
+    String encode() {
+      return callee + '\n' + sites();
+    }
+
+    static Edge decode(String encoded) {
+      int newline = encoded.indexOf('\n');
+      return new Edge(
+          encoded.substring(0, newline), parseSites(encoded.substring(newline + 1)));
+    }
+  }
+
+  /** Collects the calls of one caller, merging calls to the same callee. Not thread-safe. */
+  public static class Collector {
+    // Growing line, column pairs per callee, in order of the first call
+    private final Map<String, int[]> positions = new LinkedHashMap<>();
+    private final Map<String, Integer> sizes = new HashMap<>();
+
+    public void add(String callee, int line, int column) {
+      int size = sizes.getOrDefault(callee, 0);
+      int[] calleePositions = positions.get(callee);
+      if (calleePositions == null) {
+        calleePositions = new int[2];
+        positions.put(callee, calleePositions);
+      } else if (size == calleePositions.length) {
+        calleePositions = Arrays.copyOf(calleePositions, size * 2);
+        positions.put(callee, calleePositions);
+      }
+      calleePositions[size] = line;
+      calleePositions[size + 1] = column;
+      sizes.put(callee, size + 2);
+    }
+
+    /** Distinct callees in order of their first call. */
+    public List<String> callees() {
+      return new ArrayList<>(positions.keySet());
+    }
+
+    public List<Edge> edges() {
+      List<Edge> edges = new ArrayList<>(positions.size());
+      for (Map.Entry<String, int[]> e : positions.entrySet()) {
+        edges.add(new Edge(e.getKey(), Arrays.copyOf(e.getValue(), sizes.get(e.getKey()))));
+      }
+      return edges;
+    }
+  }
+
+  private final Map<String, List<Edge>> edges = new ConcurrentHashMap<>();
+
+  /** Replaces the call sites of {@code caller}; an empty list removes them. */
+  public void put(String caller, List<Edge> callerEdges) {
+    if (callerEdges.isEmpty()) {
+      edges.remove(caller);
+    } else {
+      edges.put(caller, callerEdges);
+    }
+  }
+
+  public void removeAll(Collection<String> callers) {
+    callers.forEach(edges::remove);
+  }
+
+  public List<Edge> get(String caller) {
+    return edges.getOrDefault(caller, List.of());
+  }
+
+  public void clear() {
+    edges.clear();
+  }
+
+  public void writeJson(Path file) throws IOException {
+    try (JsonOutput out = new JsonOutput(file)) {
+      out.raw("{");
+      int count = 0;
+      for (Map.Entry<String, List<Edge>> e : new TreeMap<>(edges).entrySet()) {
+        writeCaller(out, count++, e.getKey(), e.getValue());
+      }
+      out.raw("\n}\n");
+    }
+  }
+
+  /**
+   * Writes the {@code index}-th member of a call_sites.json object, for writers that stream
+   * callers in key order instead of holding them in a {@link CallSites}.
+   */
+  static void writeCaller(JsonOutput out, int index, String caller, List<Edge> callerEdges)
+      throws IOException {
+    out.raw(index == 0 ? "\n  " : ",\n  ").string(caller).raw(": [");
+    int edgeCount = 0;
+    for (Edge edge : callerEdges) {
+      out.raw(edgeCount++ == 0 ? "\n    " : ",\n    ")
+          .raw("{\"callee\": ").string(edge.callee)
+          .raw(", \"count\": " + edge.count())
+          .raw(", \"sites\": ").string(edge.sites())
+          .raw("}");
+    }
+    out.raw("\n  ]");
+  }
+
+  /** Adds the call sites of a call_sites.json written earlier; a missing file adds nothing. */
+  @SuppressWarnings("unchecked")
+  public void readJson(Path file) throws IOException {
+    if (!Files.exists(file)) {
+      return;
+    }
+    Map<String, Object> root = (Map<String, Object>) JsonReader.read(file);
+    for (Map.Entry<String, Object> e : root.entrySet()) {
+      List<Edge> callerEdges = new ArrayList<>();
+      for (Object value : (List<Object>) e.getValue()) {
+        Map<String, Object> edge = (Map<String, Object>) value;
+        callerEdges.add(
+            new Edge((String) edge.get("callee"), Edge.parseSites((String) edge.get("sites"))));
+      }
+      edges.put(e.getKey(), callerEdges);
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package com.example;
+
+/**
+ * Reads option values for the command-line entry points. Every method throws {@link
+ * IllegalArgumentException} naming the option, so a main method can report bad input with its usage
+ * text instead of a stack trace.
+ */
+final class CommandLineArgs {
+  private CommandLineArgs() {}
+
+  /** The value at {@code args[i]}, which follows the option at {@code args[i - 1]}. */
+  static String value(String[] args, int i) {
+    if (i >= args.length) {
+      throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+    }
+    return args[i];
+  }
+
+  /** The value at {@code args[i]} as an int of at least {@code min}. */
+  static int intAtLeast(String[] args, int i, int min) {
+    String value = value(args, i);
+    int parsed;
+    try {
+      parsed = Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(args[i - 1] + " is not a number: " + value);
+    }
+    if (parsed < min) {
+      throw new IllegalArgumentException(args[i - 1] + " must be at least " + min + ": " + value);
+    }
+    return parsed;
+  }
+
+  /** The value at {@code args[i]} as a positive int. */
+  static int positiveInt(String[] args, int i) {
+    return intAtLeast(args, i, 1);
+  }
+
+  /** The value at {@code args[i]} as a number from 0 to 1. */
+  static double fraction(String[] args, int i) {
+    String value = value(args, i);
+    double parsed;
+    try {
+      parsed = Double.parseDouble(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(args[i - 1] + " is not a number: " + value);
+    }
+    if (!(parsed >= 0 && parsed <= 1)) {
+      throw new IllegalArgumentException(args[i - 1] + " must be from 0 to 1: " + value);
+    }
+    return parsed;
+  }
+}
@@ -0,0 +1,109 @@
+package com.example;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.resolution.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe cache of parsed source files, handed to {@code JavaParserTypeSolver} as its
+ * parsed-file cache so the solver reuses compilation units the analyser has already parsed.
+ *
+ * <p>The bound is an estimate of the memory the cached ASTs take, from their line count. Values are
+ * also softly referenced, so the GC can drop them before the bound is reached. Keys are absolute,
+ * normalized paths, whatever form the caller passes.
+ *
+ * <p>The cache itself is thread-safe, but the compilation units in it are not: the symbol solver
+ * records resolved types on AST nodes. A cache is therefore meant for one solver and the pipeline
+ * thread feeding it.
+ */
+public class CompilationUnitCache implements Cache<Path, Optional<CompilationUnit>> {
+  // Rough heap footprint of a parsed line with its tokens, positions and comments
+  static final long BYTES_PER_LINE = 2048;
+
+  private final com.google.common.cache.Cache<Path, Optional<CompilationUnit>> units;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /** @param maxBytes estimated heap the cached ASTs may take */
+  public CompilationUnitCache(long maxBytes) {
+    Weigher<Path, Optional<CompilationUnit>> weigher =
+        (file, unit) -> (int) Math.min(Integer.MAX_VALUE, lines(unit) * BYTES_PER_LINE);
+    units =
+        CacheBuilder.newBuilder()
+            .softValues()
+            .maximumWeight(Math.max(1, maxBytes))
+            .weigher(weigher)
+            .build();
+  }
+
+  /** Default bound: a quarter of the maximum heap. */
+  public static long defaultBytes() {
+    return Runtime.getRuntime().maxMemory() / 4;
+  }
+
+  private static long lines(Optional<CompilationUnit> unit) {
+    return unit.flatMap(CompilationUnit::getRange).map(range -> range.end.line).orElse(1);
+  }
+
+  private static Path key(Path file) {
+    return file.toAbsolutePath().normalize();
+  }
+
+  @Override
+  public void put(Path file, Optional<CompilationUnit> unit) {
+    units.put(key(file), unit);
+  }
+
+  @Override
+  public Optional<Optional<CompilationUnit>> get(Path file) {
+    Optional<CompilationUnit> unit = units.getIfPresent(key(file));
+    if (unit == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return Optional.ofNullable(unit);
+  }
+
+  /** The cached unit of {@code file}; empty on a miss or if it failed to parse. */
+  public Optional<CompilationUnit> getUnit(Path file) {
+    return get(file).flatMap(unit -> unit);
+  }
+
+  @Override
+  public void remove(Path file) {
+    units.invalidate(key(file));
+  }
+
+  @Override
+  public void removeAll() {
+    units.invalidateAll();
+  }
+
+  @Override
+  public boolean contains(Path file) {
+    return units.getIfPresent(key(file)) != null;
+  }
+
+  @Override
+  public long size() {
+    return units.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public String toString() {
+    long h = hits.sum();
+    long m = misses.sum();
+    double hitRate = h + m == 0 ? 0 : 100.0 * h / (h + m);
+    return String.format("hits=%d misses=%d size=%d hitRate=%.1f%%", h, m, size(), hitRate);
+  }
+}
@@ -0,0 +1,132 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Call edges whose callee was named without the symbol solver because of the {@link Precision}
+ * tier, by caller signature. Written as degraded.json, so users can see what a faster run traded
+ * for its speed. Thread-safe.
+ */
+public class DegradedEdges {
+  public static final String FILE = "degraded.json";
+
+  /** The solver was skipped for a type in one of the skipped packages. */
+  public static final String SKIPPED_PACKAGE = "skippedPackage";
+  /** The file had used up its resolution budget. */
+  public static final String FILE_BUDGET = "fileBudget";
+  /** The scope type failed or ran over budget too often before. */
+  public static final String CIRCUIT_OPEN = "circuitOpen";
+
+  /** One degraded call site. */
+  public static class Edge {
+    public final String callee;
+    public final int line;
+    public final String reason;
+
+    public Edge(String callee, int line, String reason) {
+      this.callee = callee;
+      this.line = line;
+      this.reason = reason;
+    }
+
+    /** Single-string form for {@link ExternalSorter} runs; see {@link #decode}. */
+    String encode() {
+      return callee + '\n' + line + '\n' + reason;
+    }
+
+    static Edge decode(String encoded) {
+      int first = encoded.indexOf('\n');
+      int second = encoded.indexOf('\n', first + 1);
+      return new Edge(
+          encoded.substring(0, first),
+          Integer.parseInt(encoded.substring(first + 1, second)),
+          encoded.substring(second + 1));
+    }
+  }
+
+  private final Map<String, List<Edge>> edges = new ConcurrentHashMap<>();
+
+  /** Replaces the degraded edges of {@code caller}; an empty list removes them. */
+  public void put(String caller, List<Edge> callerEdges) {
+    if (callerEdges.isEmpty()) {
+      edges.remove(caller);
+    } else {
+      edges.put(caller, callerEdges);
+    }
+  }
+
+  public void removeAll(Collection<String> callers) {
+    callers.forEach(edges::remove);
+  }
+
+  public List<Edge> get(String caller) {
+    return edges.getOrDefault(caller, List.of());
+  }
+
+  /** Number of degraded edges over all callers. */
+  public int size() {
+    return edges.values().stream().mapToInt(List::size).sum();
+  }
+
+  public void clear() {
+    edges.clear();
+  }
+
+  public void writeJson(Path file) throws IOException {
+    try (JsonOutput out = new JsonOutput(file)) {
+      out.raw("{");
+      int count = 0;
+      for (Map.Entry<String, List<Edge>> e : new TreeMap<>(edges).entrySet()) {
+        writeCaller(out, count++, e.getKey(), e.getValue());
+      }
+      out.raw("\n}\n");
+    }
+  }
+
+  /**
+   * Writes the {@code index}-th member of a degraded.json object, for writers that stream callers
+   * in key order instead of holding them in a {@link DegradedEdges}.
+   */
+  static void writeCaller(JsonOutput out, int index, String caller, List<Edge> callerEdges)
+      throws IOException {
+    out.raw(index == 0 ? "\n  " : ",\n  ").string(caller).raw(": [");
+    int edgeCount = 0;
+    for (Edge edge : callerEdges) {
+      out.raw(edgeCount++ == 0 ? "\n    " : ",\n    ")
+          .raw("{\"callee\": ").string(edge.callee)
+          .raw(", \"line\": " + edge.line)
+          .raw(", \"reason\": ").string(edge.reason)
+          .raw("}");
+    }
+    out.raw("\n  ]");
+  }
+
+  /** Adds the edges of a degraded.json written earlier; a missing file adds nothing. */
+  @SuppressWarnings("unchecked")
+  public void readJson(Path file) throws IOException {
+    if (!Files.exists(file)) {
+      return;
+    }
+    Map<String, Object> root = (Map<String, Object>) JsonReader.read(file);
+    for (Map.Entry<String, Object> e : root.entrySet()) {
+      List<Edge> callerEdges = new ArrayList<>();
+      for (Object value : (List<Object>) e.getValue()) {
+        Map<String, Object> edge = (Map<String, Object>) value;
+        callerEdges.add(
+            new Edge(
+                (String) edge.get("callee"),
+                ((Number) edge.get("line")).intValue(),
+                (String) edge.get("reason")));
+      }
+      edges.put(e.getKey(), callerEdges);
+    }
+  }
+}
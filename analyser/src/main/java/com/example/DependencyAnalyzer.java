@@ -1,46 +1,122 @@
 package com.example;
 
-import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.body.EnumConstantDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.FieldAccessExpr;
+import com.github.javaparser.ast.expr.LiteralExpr;
 import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.resolution.SymbolResolver;
+import com.github.javaparser.resolution.cache.Cache;
+import com.github.javaparser.resolution.cache.GuavaCache;
 import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
 import com.github.javaparser.resolution.types.ResolvedType;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import com.google.common.cache.CacheBuilder;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
-public class DependencyAnalyzer {
+public class DependencyAnalyzer implements SourceFileVisitor {
 
   private JavaSymbolSolver symbolSolver;
   private String outputDir;
+  // Source roots of every module analysed together, resolved against each other
+  private final List<String> sourceRoots;
+  // Indexes of the JARs that could be opened, shared by the solvers of all workers
+  private final List<JarIndex> jarIndexes = new ArrayList<>();
+  private final CallGraph.Builder callGraph = new CallGraph.Builder();
+  // Shared by all workers; holds only strings, never solver state
+  private final ResolutionCache resolutionCache = new ResolutionCache();
+  // Types of resolved calls that are the scope of another call, by the same keys
+  private final ResolutionCache callTypes = new ResolutionCache();
+  // Parsed files of the shared solver, filled by the analyser too; kept so changed files can be evicted
+  private final CompilationUnitCache compilationUnits =
+      new CompilationUnitCache(CompilationUnitCache.defaultBytes());
+  // Parsed files of each worker's solver, by the solver the worker's units are parsed with
+  private final Map<SymbolResolver, CompilationUnitCache> workerUnits =
+      Collections.synchronizedMap(new WeakHashMap<>());
+  private final Cache<Path, List<CompilationUnit>> parsedDirectories = newSoftCache();
+  // Type lookups are cached per root; parsed files and directories are keyed by absolute path
+  private final List<Cache<String, SymbolReference<ResolvedReferenceTypeDeclaration>>> foundTypes =
+      new ArrayList<>();
+  private final TypeNameResolver typeNames;
+  private final Precision precision;
+  // Consecutive solver failures and budget overruns per scope type, for the circuit breaker
+  private final Map<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+  private final DegradedEdges degradedEdges = new DegradedEdges();
+  private final CallSites callSites = new CallSites();
 
   public DependencyAnalyzer(String projectSourceRoot, List<String> externalJars, String outputDir)
       throws IOException {
-    this.outputDir = outputDir;
-    // Setup type solvers
-    CombinedTypeSolver typeSolver = new CombinedTypeSolver();
+    this(projectSourceRoot, externalJars, outputDir, JarIndex.DEFAULT_DIRECTORY);
+  }
 
-    // Add JDK classes
-    typeSolver.add(new ReflectionTypeSolver());
+  /**
+   * @param jarIndexDir directory holding the persistent {@link JarIndex} files of external JARs
+   */
+  public DependencyAnalyzer(
+      String projectSourceRoot, List<String> externalJars, String outputDir, Path jarIndexDir)
+      throws IOException {
+    this(projectSourceRoot, externalJars, outputDir, jarIndexDir, Precision.FULL);
+  }
 
-    // Add project source code
-    typeSolver.add(new JavaParserTypeSolver(new File(projectSourceRoot)));
+  /**
+   * @param jarIndexDir directory holding the persistent {@link JarIndex} files of external JARs
+   * @param precision how much time call resolution may spend
+   */
+  public DependencyAnalyzer(
+      String projectSourceRoot,
+      List<String> externalJars,
+      String outputDir,
+      Path jarIndexDir,
+      Precision precision)
+      throws IOException {
+    this(List.of(projectSourceRoot), externalJars, outputDir, jarIndexDir, precision);
+  }
+
+  /**
+   * Analyzer for several source roots, such as the modules of a Maven reactor, sharing one symbol
+   * solver so calls across modules resolve. Roots are searched in order.
+   *
+   * @param jarIndexDir directory holding the persistent {@link JarIndex} files of external JARs
+   * @param precision how much time call resolution may spend
+   */
+  public DependencyAnalyzer(
+      List<String> sourceRoots,
+      List<String> externalJars,
+      String outputDir,
+      Path jarIndexDir,
+      Precision precision)
+      throws IOException {
+    this.outputDir = outputDir;
+    this.sourceRoots = new ArrayList<>(sourceRoots);
+    this.precision = precision;
 
-    // Add external JARs (Spring, etc.)
+    // Index external JARs (Spring, etc.); JARs are only opened once a type in them is needed
     if (externalJars != null) {
       for (String jarPath : externalJars) {
         try {
-          typeSolver.add(new JarTypeSolver(jarPath));
+          JarIndex index = JarIndex.open(jarPath, jarIndexDir);
+          jarIndexes.add(index);
           System.out.println("Added JAR: " + jarPath);
         } catch (IOException e) {
           System.err.println("Failed to add JAR: " + jarPath + " - " + e.getMessage());
@@ -48,57 +124,436 @@ public class DependencyAnalyzer {
       }
     }
 
+    typeNames =
+        new TypeNameResolver(
+            sourceRoots.stream().map(Paths::get).collect(Collectors.toList()),
+            this::isExternalType,
+            compilationUnits);
+
     // Configure symbol solver
-    symbolSolver = new JavaSymbolSolver(typeSolver);
-    StaticJavaParser.getConfiguration().setSymbolResolver(symbolSolver);
+    List<JavaParserTypeSolver> sourceSolvers = new ArrayList<>();
+    for (String root : sourceRoots) {
+      Cache<String, SymbolReference<ResolvedReferenceTypeDeclaration>> rootTypes = newSoftCache();
+      foundTypes.add(rootTypes);
+      sourceSolvers.add(
+          new JavaParserTypeSolver(
+              Paths.get(root),
+              new JavaParser(new ParserConfiguration()),
+              compilationUnits,
+              parsedDirectories,
+              rootTypes));
+    }
+    symbolSolver = new JavaSymbolSolver(createTypeSolver(sourceSolvers));
+    workerUnits.put(symbolSolver, compilationUnits);
+  }
+
+  // A worker's solvers share its compilation-unit cache; the other caches are theirs alone
+  private CombinedTypeSolver createTypeSolver(CompilationUnitCache units) {
+    List<JavaParserTypeSolver> sourceSolvers = new ArrayList<>();
+    for (String root : sourceRoots) {
+      sourceSolvers.add(
+          new JavaParserTypeSolver(
+              Paths.get(root),
+              new JavaParser(new ParserConfiguration()),
+              units,
+              newSoftCache(),
+              newSoftCache()));
+    }
+    return createTypeSolver(sourceSolvers);
+  }
+
+  private CombinedTypeSolver createTypeSolver(List<JavaParserTypeSolver> sourceSolvers) {
+    CombinedTypeSolver typeSolver = new CombinedTypeSolver();
+
+    // Add JDK classes
+    typeSolver.add(new ReflectionTypeSolver());
+
+    // Add project source code, one solver per module
+    for (JavaParserTypeSolver sourceSolver : sourceSolvers) {
+      typeSolver.add(sourceSolver);
+    }
+
+    // Add external JARs
+    for (JarIndex index : jarIndexes) {
+      typeSolver.add(new IndexedJarTypeSolver(index));
+    }
+    return typeSolver;
+  }
+
+  private boolean isExternalType(String typeName) {
+    for (JarIndex index : jarIndexes) {
+      if (index.contains(typeName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Same policy JavaParserTypeSolver uses for its own caches
+  private static <K, V> Cache<K, V> newSoftCache() {
+    return new GuavaCache<>(CacheBuilder.newBuilder().softValues().build());
+  }
+
+  /**
+   * Forgets what the shared symbol solver and the resolution cache know about changed or deleted
+   * source files, so they are re-read on the next resolution. Solvers handed out by {@link
+   * #newParserConfiguration} are not affected; they are meant for a single batch run.
+   *
+   * <p>Parsed files are evicted one by one. Type lookups and resolutions are dropped for every
+   * package a changed file lives in, together with all unresolvable calls, which may now resolve.
+   */
+  public void invalidate(Collection<Path> changedFiles) {
+    Set<String> packages = new HashSet<>();
+    for (Path file : changedFiles) {
+      Path absolute = file.toAbsolutePath();
+      compilationUnits.remove(absolute);
+      Path root = rootOf(absolute.normalize());
+      Path directory = root.relativize(absolute.normalize()).getParent();
+      packages.add(directory == null ? "" : directory.toString().replace(File.separatorChar, '.'));
+    }
+    parsedDirectories.removeAll();
+    foundTypes.forEach(Cache::removeAll);
+    typeNames.invalidate(changedFiles);
+    // Scope types that kept failing may resolve now
+    failures.clear();
+    resolutionCache.removeIf(
+        (key, value) ->
+            value.equals(ResolutionCache.UNRESOLVABLE)
+                || inPackages(key, packages)
+                || inPackages(value, packages));
+    callTypes.removeIf((key, value) -> inPackages(key, packages) || inPackages(value, packages));
+  }
+
+  // Source root holding a file; the first root if none does, as with a single root before
+  private Path rootOf(Path file) {
+    for (String sourceRoot : sourceRoots) {
+      Path root = Paths.get(sourceRoot).toAbsolutePath().normalize();
+      if (file.startsWith(root)) {
+        return root;
+      }
+    }
+    return Paths.get(sourceRoots.get(0)).toAbsolutePath().normalize();
+  }
+
+  private static boolean inPackages(String name, Set<String> packages) {
+    for (String pkg : packages) {
+      // Sources in the default package cannot be told apart by name; drop everything
+      if (pkg.isEmpty() || name.startsWith(pkg + ".")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Type names as this analyzer qualifies them, for extractors whose keys must match. */
+  public TypeNameResolver getTypeNameResolver() {
+    return typeNames;
+  }
+
+  public Precision getPrecision() {
+    return precision;
+  }
+
+  /** Indexes of the external JARs that could be opened, in lookup order. */
+  public List<JarIndex> getJarIndexes() {
+    return Collections.unmodifiableList(jarIndexes);
+  }
+
+  /** Edges named without the solver because of the precision tier, by caller. */
+  public DegradedEdges getDegradedEdges() {
+    return degradedEdges;
+  }
+
+  /** Count and positions of the calls behind each edge, by caller. */
+  public CallSites getCallSites() {
+    return callSites;
+  }
+
+  /** Parser configuration whose compilation units can be resolved by this analyzer. */
+  public ParserConfiguration getParserConfiguration() {
+    return new ParserConfiguration().setSymbolResolver(symbolSolver);
+  }
+
+  /**
+   * Parsed files of the shared solver. Units the analyser parses with {@link
+   * #getParserConfiguration} are added as they are analysed, and a single-threaded pipeline can
+   * take the units the solver parsed first instead of parsing them again.
+   */
+  public CompilationUnitCache getCompilationUnits() {
+    return compilationUnits;
+  }
+
+  /**
+   * Parser configuration backed by a symbol solver of its own. Type solvers keep internal caches
+   * and are not thread-safe, so every parallel worker needs a separate instance.
+   */
+  public ParserConfiguration newParserConfiguration() {
+    return newParserConfiguration(CompilationUnitCache.defaultBytes());
+  }
+
+  // Worker solver whose parsed files are cached within its share of the bound
+  private ParserConfiguration newParserConfiguration(long unitBytes) {
+    CompilationUnitCache units = new CompilationUnitCache(unitBytes);
+    JavaSymbolSolver solver = new JavaSymbolSolver(createTypeSolver(units));
+    workerUnits.put(solver, units);
+    return new ParserConfiguration().setSymbolResolver(solver);
+  }
+
+  /** Supplies one parser configuration per pipeline worker. */
+  public Supplier<ParserConfiguration> parserConfigurations(int threads) {
+    if (threads <= 1) {
+      return this::getParserConfiguration;
+    }
+    long unitBytes = CompilationUnitCache.defaultBytes() / threads;
+    return () -> newParserConfiguration(unitBytes);
+  }
+
+  /**
+   * Hands an analysed unit to the solver it was parsed for, which would otherwise parse the file
+   * again to resolve calls into it. Units of other solvers are left alone; see {@link
+   * CompilationUnitCache}.
+   */
+  private void share(CompilationUnit cu) {
+    if (cu.getStorage().isEmpty() || !cu.containsData(Node.SYMBOL_RESOLVER_KEY)) {
+      return;
+    }
+    CompilationUnitCache units = workerUnits.get(cu.getData(Node.SYMBOL_RESOLVER_KEY));
+    if (units != null) {
+      units.put(cu.getStorage().get().getPath(), Optional.of(cu));
+    }
+  }
+
+  @Override
+  public void visit(SourceFile sourceFile) {
+    analyzeCalls(sourceFile.compilationUnit).forEach(callGraph::put);
+  }
+
+  /** Call graph of every file visited so far, built anew on every call. */
+  public CallGraph getCallGraph() {
+    return callGraph.build();
+  }
+
+  /** Dependencies collected from every file visited so far. */
+  public Map<String, List<MethodMetadata>> getDependencies() {
+    return getCallGraph().toDependencyMap();
   }
 
   public Map<String, List<MethodMetadata>> analyzeFile(String javaFilePath) throws IOException {
-    File file = new File(javaFilePath);
-    CompilationUnit cu = StaticJavaParser.parse(file);
+    CompilationUnit cu;
+    Metrics.Timer timer = Metrics.get().time(Metrics.PARSE);
+    try {
+      cu =
+          new JavaParser(getParserConfiguration())
+              .parse(new File(javaFilePath))
+              .getResult()
+              .orElseThrow(() -> new IOException("Unable to parse " + javaFilePath));
+    } finally {
+      timer.close();
+    }
+    return analyzeCompilationUnit(cu);
+  }
 
+  public Map<String, List<MethodMetadata>> analyzeCompilationUnit(CompilationUnit cu) {
     Map<String, List<MethodMetadata>> methodDependencies = new HashMap<>();
-
-    // Find all methods in the file
-    cu.findAll(MethodDeclaration.class)
+    analyzeCalls(cu)
         .forEach(
-            method -> {
-              String methodName = getMethodFullName(cu, method);
-              List<MethodMetadata> dependencies = new ArrayList<>();
-
-              // Find all method calls in this method
-              method
-                  .findAll(MethodCallExpr.class)
-                  .forEach(
-                      call -> {
-                        try {
-                          MethodMetadata dep = resolveMethodCall(cu, call);
-                          dependencies.add(dep);
-                        } catch (Exception e) {
-                          // If resolution fails, store what we know
-                          System.err.println(
-                              "    [ERROR] Failed to resolve: "
-                                  + call.getNameAsString()
-                                  + " in method "
-                                  + method.getNameAsString()
-                                  + " - "
-                                  + e.getMessage());
-                          dependencies.add(
-                              new MethodMetadata(
-                                  "UNRESOLVED",
-                                  "UNRESOLVED",
-                                  call.getNameAsString(),
-                                  Collections.emptyList()));
-                        }
-                      });
-
-              methodDependencies.put(methodName, dependencies);
-            });
+            (method, callees) ->
+                methodDependencies.put(
+                    method,
+                    callees.stream().map(MethodMetadata::parse).collect(Collectors.toList())));
+    return methodDependencies;
+  }
+
+  /**
+   * Maps the signature of every method in the file to the signatures of the methods it calls, in
+   * call order. Signatures of resolved calls are shared through the resolution cache.
+   */
+  public Map<String, List<String>> analyzeCalls(CompilationUnit cu) {
+    share(cu);
+    Metrics metrics = Metrics.get();
+    Map<String, List<String>> methodDependencies = new HashMap<>();
+    Map<Node, LocalSymbolTable> typeSymbols = new IdentityHashMap<>();
+    // Solver time spent on this file, checked against the file budget
+    long resolving = 0;
+
+    Metrics.Timer timer = metrics.time(Metrics.RESOLVE);
+    try {
+      // Find all methods in the file
+      for (MethodDeclaration method : cu.findAll(MethodDeclaration.class)) {
+        String methodName = getMethodFullName(cu, method);
+        // Repeated calls to one callee become one edge with several call sites
+        CallSites.Collector sites = new CallSites.Collector();
+        List<DegradedEdges.Edge> degraded = new ArrayList<>();
+        Node owner = enclosingType(method);
+        LocalSymbolTable methodSymbols =
+            LocalSymbolTable.forMethod(method, typeSymbols(owner, typeSymbols));
+
+        // Find all method calls in this method
+        for (MethodCallExpr call : method.findAll(MethodCallExpr.class)) {
+          long start = System.nanoTime();
+          // Calls in nested classes see other names than the method body
+          LocalSymbolTable symbols = enclosingType(call) == owner ? methodSymbols : null;
+          String scopeType = scopeTypeOf(cu, call, symbols, metrics);
+          String breakerKey = breakerKey(call, scopeType);
+
+          String degradation = null;
+          if (scopeType != null
+              && precision.isSkipped(scopeType)
+              && !typeNames.isProjectType(rawTypeName(scopeType))) {
+            degradation = DegradedEdges.SKIPPED_PACKAGE;
+          } else if (precision.fileBudgetNanos > 0 && resolving > precision.fileBudgetNanos) {
+            degradation = DegradedEdges.FILE_BUDGET;
+          } else if (isCircuitOpen(breakerKey)) {
+            degradation = DegradedEdges.CIRCUIT_OPEN;
+          }
+
+          String callee;
+          if (degradation != null) {
+            callee = degradedCallee(cu, call, scopeType).toString();
+            degraded.add(
+                new DegradedEdges.Edge(
+                    callee, call.getBegin().map(p -> p.line).orElse(0), degradation));
+            metrics.increment(Metrics.DEGRADED);
+            metrics.increment(Metrics.DEGRADED + "." + degradation);
+          } else {
+            try {
+              callee = resolveMethodCall(cu, call, symbols, scopeType, breakerKey);
+            } catch (Exception e) {
+              // If resolution fails, store what we know
+              callee =
+                  MethodMetadata.signature(
+                      "UNRESOLVED", "UNRESOLVED", call.getNameAsString(), Collections.emptyList());
+            }
+            long elapsed = System.nanoTime() - start;
+            resolving += elapsed;
+            if (precision.callBudgetNanos > 0 && elapsed > precision.callBudgetNanos) {
+              recordFailure(breakerKey);
+            }
+          }
+          if (callee.startsWith("UNRESOLVED.")) {
+            metrics.unresolved(call.getNameAsString() + " in " + methodName);
+          }
+          sites.add(
+              callee,
+              call.getBegin().map(p -> p.line).orElse(0),
+              call.getBegin().map(p -> p.column).orElse(0));
+          metrics.recordCall(call.getNameAsString(), System.nanoTime() - start);
+        }
+
+        methodDependencies.put(methodName, sites.callees());
+        degradedEdges.put(methodName, degraded);
+        callSites.put(methodName, sites.edges());
+      }
+    } finally {
+      timer.close();
+    }
 
     return methodDependencies;
   }
 
-  private MethodMetadata resolveMethodCall(CompilationUnit cu, MethodCallExpr call) {
+  /** Table of the fields visible in a type declaration or anonymous class body, built once. */
+  private static LocalSymbolTable typeSymbols(Node type, Map<Node, LocalSymbolTable> tables) {
+    if (type == null) {
+      return null;
+    }
+    LocalSymbolTable table = tables.get(type);
+    if (table == null) {
+      table = LocalSymbolTable.forType(type, typeSymbols(enclosingType(type), tables));
+      tables.put(type, table);
+    }
+    return table;
+  }
+
+  /** Nearest type declaration, anonymous class or enum constant body around the node. */
+  private static Node enclosingType(Node node) {
+    Optional<Node> parent = node.getParentNode();
+    while (parent.isPresent()) {
+      Node current = parent.get();
+      if (current instanceof TypeDeclaration
+          || current instanceof EnumConstantDeclaration
+          || (current instanceof ObjectCreationExpr
+              && ((ObjectCreationExpr) current).getAnonymousClassBody().isPresent())) {
+        return current;
+      }
+      parent = current.getParentNode();
+    }
+    return null;
+  }
+
+  /**
+   * Scope types are keyed by name; unscoped calls by their class; calls on unknown scopes by their
+   * class and method name, so one failing {@code get()} does not degrade every other one.
+   */
+  private String breakerKey(MethodCallExpr call, String scopeType) {
+    if (scopeType != null) {
+      return scopeType;
+    }
+    String enclosingType = enclosingTypeName(call);
+    String caller = enclosingType == null ? "?" : enclosingType;
+    if (!call.getScope().isPresent()) {
+      return caller;
+    }
+    return caller + "#?." + call.getNameAsString();
+  }
+
+  private boolean isCircuitOpen(String breakerKey) {
+    if (precision.failureThreshold <= 0) {
+      return false;
+    }
+    AtomicInteger count = failures.get(breakerKey);
+    return count != null && count.get() >= precision.failureThreshold;
+  }
+
+  private void recordFailure(String breakerKey) {
+    if (precision.failureThreshold > 0) {
+      failures.computeIfAbsent(breakerKey, k -> new AtomicInteger()).incrementAndGet();
+    }
+  }
+
+  // Only failures in a row open the circuit; a slow start or an odd call site does not
+  private void recordSuccess(String breakerKey) {
+    if (precision.failureThreshold > 0) {
+      failures.remove(breakerKey);
+    }
+  }
+
+  /** Names the callee from what the AST and the symbol table know, without the solver. */
+  private MethodMetadata degradedCallee(CompilationUnit cu, MethodCallExpr call, String scopeType) {
+    String methodName = call.getNameAsString();
+    if (scopeType != null) {
+      return methodOfType(scopeType, methodName);
+    }
+    if (!call.getScope().isPresent()) {
+      return getMethodInCurrentClass(cu, call, methodName);
+    }
+    Expression scope = call.getScope().get();
+    if (scope.isObjectCreationExpr()) {
+      return methodOfType(typeNames.qualify(scope.asObjectCreationExpr().getType()), methodName);
+    }
+    return new MethodMetadata("UNRESOLVED", "UNRESOLVED", methodName, Collections.emptyList());
+  }
+
+  private String resolveMethodCall(
+      CompilationUnit cu,
+      MethodCallExpr call,
+      LocalSymbolTable symbols,
+      String scopeType,
+      String breakerKey) {
+    // Reuse an earlier resolution of the same scope type, name and argument types
+    String cacheKey = resolutionCacheKey(cu, call, symbols, scopeType);
+    if (cacheKey != null) {
+      String cached = resolutionCache.get(cacheKey);
+      if (ResolutionCache.UNRESOLVABLE.equals(cached)) {
+        Metrics.get().increment(Metrics.AST_FALLBACKS);
+        return extractMethodMetadataFromAST(cu, call, symbols).toString();
+      }
+      if (cached != null) {
+        Metrics.get().increment(Metrics.CACHE_HITS);
+        recordSuccess(breakerKey);
+        return cached;
+      }
+    }
+
     // Try full resolution first
     try {
       ResolvedMethodDeclaration resolved = call.resolve();
@@ -112,14 +567,247 @@ public class DependencyAnalyzer {
         paramTypes.add(paramType.describe());
       }
 
-      return new MethodMetadata(packageName, className, methodName, paramTypes);
+      String signature = MethodMetadata.signature(packageName, className, methodName, paramTypes);
+      Metrics.get().increment(Metrics.RESOLVED);
+      recordSuccess(breakerKey);
+      if (cacheKey != null) {
+        resolutionCache.put(cacheKey, signature);
+        if (isCallScope(call)) {
+          ResolvedType type = call.calculateResolvedType();
+          if (isConcrete(type)) {
+            callTypes.put(cacheKey, type.describe());
+          }
+        }
+      }
+      return signature;
     } catch (Exception e) {
+      if (cacheKey != null) {
+        resolutionCache.put(cacheKey, ResolutionCache.UNRESOLVABLE);
+      }
+      recordFailure(breakerKey);
       // Fallback to AST-based extraction
-      return extractMethodMetadataFromAST(cu, call);
+      Metrics.get().increment(Metrics.AST_FALLBACKS);
+      return extractMethodMetadataFromAST(cu, call, symbols).toString();
+    }
+  }
+
+  /**
+   * Type of the call's scope if the AST and the local symbol table name it without the solver:
+   * literals, variables and {@code this} fields with a plainly declared type, and types of static
+   * calls. Null otherwise, and for calls without a scope.
+   *
+   * @param metrics counts the scopes typed by a local symbol table lookup, unless null
+   */
+  private String scopeTypeOf(
+      CompilationUnit cu, MethodCallExpr call, LocalSymbolTable symbols, Metrics metrics) {
+    if (!call.getScope().isPresent()) {
+      return null;
+    }
+    Expression scope = call.getScope().get();
+    String scopeType = symbolTableTypeOf(scope, symbols);
+    if (scopeType != null) {
+      if (metrics != null) {
+        metrics.increment(Metrics.SYMBOL_TABLE_HITS);
+      }
+      return scopeType;
+    }
+    scopeType = literalTypeOf(scope);
+    if (scopeType == null && scope.isNameExpr() && symbols != null) {
+      // Static call on a type, e.g. Collections.emptyList()
+      String name = scope.asNameExpr().getNameAsString();
+      if (Character.isUpperCase(name.charAt(0))
+          && symbols.find(name, scope) == null
+          && !isStaticallyImported(cu, name)) {
+        scopeType = typeNames.qualifyIfKnown(name, scope);
+      }
+    }
+    return scopeType;
+  }
+
+  /**
+   * Builds a context-free key "scopeType#name(argType,...)" for the call, or returns null when the
+   * result could depend on where the call appears (lambda arguments, anonymous or local classes) or
+   * when a type cannot be named without the symbol solver.
+   *
+   * <p>Only scopes and arguments typed without the solver go into the key, see {@link
+   * #localTypeOf}. Asking the solver for the rest would cost about as much as resolving the call,
+   * even on a hit.
+   *
+   * @param scopeType the scope's type from {@link #scopeTypeOf}, or null
+   */
+  private String resolutionCacheKey(
+      CompilationUnit cu, MethodCallExpr call, LocalSymbolTable symbols, String scopeType) {
+    try {
+      StringBuilder key = new StringBuilder();
+      if (call.getScope().isPresent()) {
+        if (scopeType == null) {
+          scopeType = localTypeOf(cu, call.getScope().get(), symbols);
+        }
+        if (scopeType == null) {
+          return null;
+        }
+        key.append(scopeType);
+      } else {
+        String enclosingType = enclosingTypeName(call);
+        if (enclosingType == null) {
+          return null;
+        }
+        key.append(enclosingType);
+      }
+      key.append('#').append(call.getNameAsString()).append('(');
+      for (Expression arg : call.getArguments()) {
+        if (arg.isLambdaExpr() || arg.isMethodReferenceExpr()) {
+          return null;
+        }
+        String argType = localTypeOf(cu, arg, symbols);
+        if (argType == null) {
+          return null;
+        }
+        key.append(argType).append(',');
+      }
+      return key.append(')').toString();
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * Type of an expression named without the symbol solver: what {@link #declaredTypeOf} names,
+   * unqualified {@code this}, object creations with explicit type arguments, and calls whose key
+   * already has a type in {@link #callTypes}. Null otherwise.
+   */
+  private String localTypeOf(CompilationUnit cu, Expression expr, LocalSymbolTable symbols) {
+    String type = declaredTypeOf(cu, expr, symbols);
+    if (type != null) {
+      return type;
+    }
+    if (expr.isThisExpr()) {
+      return expr.asThisExpr().getTypeName().isPresent() ? null : enclosingTypeName(expr);
+    }
+    if (expr.isObjectCreationExpr()) {
+      ObjectCreationExpr creation = expr.asObjectCreationExpr();
+      // A diamond's type arguments come from the context
+      return creation.getAnonymousClassBody().isPresent()
+              || creation.getType().isUsingDiamondOperator()
+          ? null
+          : typeNames.qualifyIfKnown(creation.getType());
+    }
+    if (expr.isMethodCallExpr()) {
+      MethodCallExpr call = expr.asMethodCallExpr();
+      String key = resolutionCacheKey(cu, call, symbols, scopeTypeOf(cu, call, symbols, null));
+      return key == null ? null : callTypes.get(key);
+    }
+    return null;
+  }
+
+  // A call's type is only worth keeping when another call is made on its result
+  private static boolean isCallScope(MethodCallExpr call) {
+    return call.getParentNode()
+        .filter(parent -> parent instanceof MethodCallExpr)
+        .flatMap(parent -> ((MethodCallExpr) parent).getScope())
+        .map(scope -> scope == call)
+        .orElse(false);
+  }
+
+  // Without type variables or wildcards, so the type means the same wherever the key recurs
+  private static boolean isConcrete(ResolvedType type) {
+    if (type.isPrimitive()) {
+      return true;
+    }
+    if (type.isArray()) {
+      return isConcrete(type.asArrayType().getComponentType());
+    }
+    if (type.isReferenceType()) {
+      for (ResolvedType argument : type.asReferenceType().typeParametersValues()) {
+        if (!isConcrete(argument)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Type of a literal, or of a variable or {@code this} field whose declared type can be named
+   * without the symbol solver; null otherwise. The result matches what the solver describes.
+   */
+  private String declaredTypeOf(CompilationUnit cu, Expression expr, LocalSymbolTable symbols) {
+    String type = literalTypeOf(expr);
+    return type != null ? type : symbolTableTypeOf(expr, symbols);
+  }
+
+  private static String literalTypeOf(Expression expr) {
+    if (expr instanceof LiteralExpr) {
+      if (expr.isIntegerLiteralExpr()) {
+        return "int";
+      } else if (expr.isLongLiteralExpr()) {
+        return "long";
+      } else if (expr.isStringLiteralExpr() || expr.isTextBlockLiteralExpr()) {
+        return "java.lang.String";
+      } else if (expr.isBooleanLiteralExpr()) {
+        return "boolean";
+      } else if (expr.isCharLiteralExpr()) {
+        return "char";
+      } else if (expr.isDoubleLiteralExpr()) {
+        String value = expr.asDoubleLiteralExpr().getValue();
+        return value.endsWith("f") || value.endsWith("F") ? "float" : "double";
+      }
+    }
+    return null;
+  }
+
+  // Type of a variable or this field the local symbol table declares with a nameable type
+  private String symbolTableTypeOf(Expression expr, LocalSymbolTable symbols) {
+    if (symbols == null) {
+      return null;
     }
+    LocalSymbolTable.Declaration declaration = null;
+    if (expr.isNameExpr()) {
+      declaration = symbols.find(expr.asNameExpr().getNameAsString(), expr);
+    } else if (expr.isFieldAccessExpr()) {
+      FieldAccessExpr field = expr.asFieldAccessExpr();
+      if (field.getScope().isThisExpr() && !field.getScope().asThisExpr().getTypeName().isPresent()) {
+        declaration = symbols.findField(field.getNameAsString());
+      }
+    }
+    return declaration == null || declaration.type == null
+        ? null
+        : typeNames.qualifyIfKnown(declaration.type);
   }
 
-  private MethodMetadata extractMethodMetadataFromAST(CompilationUnit cu, MethodCallExpr call) {
+  private static boolean isStaticallyImported(CompilationUnit cu, String name) {
+    for (ImportDeclaration importDecl : cu.getImports()) {
+      if (importDecl.isStatic()
+          && (importDecl.isAsterisk() || importDecl.getName().getIdentifier().equals(name))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private String enclosingTypeName(Node node) {
+    Optional<Node> parent = node.getParentNode();
+    while (parent.isPresent()) {
+      Node current = parent.get();
+      if (current instanceof ObjectCreationExpr
+          && ((ObjectCreationExpr) current).getAnonymousClassBody().isPresent()) {
+        return null;
+      }
+      if (current instanceof TypeDeclaration) {
+        return ((TypeDeclaration<?>) current).getFullyQualifiedName().orElse(null);
+      }
+      parent = current.getParentNode();
+    }
+    return null;
+  }
+
+  public ResolutionCache getResolutionCache() {
+    return resolutionCache;
+  }
+
+  private MethodMetadata extractMethodMetadataFromAST(
+      CompilationUnit cu, MethodCallExpr call, LocalSymbolTable symbols) {
     String methodName = call.getNameAsString();
     
     // Try to extract scope type
@@ -129,23 +817,27 @@ public class DependencyAnalyzer {
     }
 
     // Has scope - try to determine the type
-    String scopeType = extractScopeType(cu, call);
+    String scopeType = extractScopeType(cu, call, symbols);
     
     if (scopeType != null && !scopeType.equals("UNRESOLVED")) {
-      // Parse the fully qualified type name
-      String cleanType = scopeType.replaceAll("<.*?>", "");
-      int lastDot = cleanType.lastIndexOf('.');
-      String packageName = lastDot > 0 ? cleanType.substring(0, lastDot) : "";
-      String className = lastDot > 0 ? cleanType.substring(lastDot + 1) : cleanType;
-      
-      return new MethodMetadata(packageName, className, methodName, Collections.emptyList());
+      return methodOfType(scopeType, methodName);
     }
 
     return new MethodMetadata("UNRESOLVED", "UNRESOLVED", methodName, Collections.emptyList());
   }
 
+  // A method of a fully qualified type, parameters unknown
+  private static MethodMetadata methodOfType(String typeName, String methodName) {
+    String cleanType = rawTypeName(typeName);
+    int lastDot = cleanType.lastIndexOf('.');
+    String packageName = lastDot > 0 ? cleanType.substring(0, lastDot) : "";
+    String className = lastDot > 0 ? cleanType.substring(lastDot + 1) : cleanType;
+    return new MethodMetadata(packageName, className, methodName, Collections.emptyList());
+  }
+
   private MethodMetadata getMethodInCurrentClass(CompilationUnit cu, MethodCallExpr call, String methodName) {
-    var classDecl = call.findAncestor(com.github.javaparser.ast.body.ClassOrInterfaceDeclaration.class);
+    var classDecl =
+        Ancestors.nearest(call, com.github.javaparser.ast.body.ClassOrInterfaceDeclaration.class);
     
     if (classDecl.isPresent()) {
       String packageName = cu.getPackageDeclaration()
@@ -159,7 +851,8 @@ public class DependencyAnalyzer {
     return new MethodMetadata("UNRESOLVED", "UNRESOLVED", methodName, Collections.emptyList());
   }
 
-  private String extractScopeType(CompilationUnit cu, MethodCallExpr call) {
+  private String extractScopeType(
+      CompilationUnit cu, MethodCallExpr call, LocalSymbolTable symbols) {
     if (!call.getScope().isPresent()) {
       return null;
     }
@@ -187,7 +880,7 @@ public class DependencyAnalyzer {
           return returnType;
         }
         // For chained calls, trace back to the root
-        return extractScopeType(cu, scopeMethod);
+        return extractScopeType(cu, scopeMethod, symbols);
       }
     }
 
@@ -196,17 +889,18 @@ public class DependencyAnalyzer {
       com.github.javaparser.ast.expr.NameExpr nameExpr = 
           (com.github.javaparser.ast.expr.NameExpr) scope;
       String name = nameExpr.getNameAsString();
-      
-      // Check if it's an imported class (static method call)
-      String importedType = findTypeInImports(cu, name);
-      if (importedType != null) {
-        return importedType;
+
+      // Check if it's a variable; variables obscure types of the same name
+      LocalSymbolTable.Declaration variable =
+          symbols == null ? null : symbols.find(name, nameExpr);
+      if (variable != null && variable.type != null) {
+        return typeNames.qualify(variable.type);
       }
-      
-      // Check if it's a local variable
-      String varType = findVariableType(cu, call, name);
-      if (varType != null) {
-        return varType;
+
+      // Check if it's a type (static method call)
+      String typeName = typeNames.qualifyIfKnown(name, nameExpr);
+      if (typeName != null) {
+        return typeName;
       }
     }
 
@@ -214,8 +908,7 @@ public class DependencyAnalyzer {
     if (scope instanceof com.github.javaparser.ast.expr.ObjectCreationExpr) {
       com.github.javaparser.ast.expr.ObjectCreationExpr constructor = 
           (com.github.javaparser.ast.expr.ObjectCreationExpr) scope;
-      String typeString = constructor.getType().asString();
-      return getFullyQualifiedTypeName(cu, typeString);
+      return typeNames.qualify(constructor.getType());
     }
 
     return "UNRESOLVED";
@@ -244,76 +937,9 @@ public class DependencyAnalyzer {
     return null;
   }
 
-  private String findTypeInImports(CompilationUnit cu, String typeName) {
-    for (var importDecl : cu.getImports()) {
-      String importName = importDecl.getNameAsString();
-      if (importName.endsWith("." + typeName)) {
-        return importName;
-      }
-    }
-    return null;
-  }
-
-  private String findVariableType(CompilationUnit cu, MethodCallExpr call, String varName) {
-    var methodDecl = call.findAncestor(MethodDeclaration.class);
-    if (methodDecl.isPresent()) {
-      var varDecls = methodDecl.get().findAll(com.github.javaparser.ast.body.VariableDeclarator.class);
-      for (var varDecl : varDecls) {
-        if (varDecl.getNameAsString().equals(varName) && varDecl.getType() != null) {
-          String typeString = varDecl.getType().asString();
-          return getFullyQualifiedTypeName(cu, typeString);
-        }
-      }
-    }
-    return null;
-  }
-
-  private String getFullyQualifiedTypeName(CompilationUnit cu, String simpleTypeName) {
-    // Remove generics for lookup
-    String baseType = simpleTypeName.replaceAll("<.*>", "").trim();
-
-    // Check if it's a primitive
-    if (isPrimitive(baseType)) {
-      return simpleTypeName;
-    }
-
-    // Check if it's a java.lang type
-    if (isJavaLangType(baseType)) {
-      return simpleTypeName.replace(baseType, "java.lang." + baseType);
-    }
-
-    // Look through imports
-    String importedType = findTypeInImports(cu, baseType);
-    if (importedType != null) {
-      return simpleTypeName.replace(baseType, importedType);
-    }
-
-    // If not found in imports, assume it's in the same package
-    String packageName = cu.getPackageDeclaration()
-        .map(pd -> pd.getNameAsString())
-        .orElse("");
-
-    return packageName.isEmpty() ? simpleTypeName : packageName + "." + simpleTypeName;
-  }
-
-  private boolean isPrimitive(String type) {
-    return type.matches("byte|short|int|long|float|double|boolean|char|void");
-  }
-
-  private boolean isJavaLangType(String type) {
-    return type.equals("String")
-        || type.equals("Object")
-        || type.equals("Integer")
-        || type.equals("Long")
-        || type.equals("Double")
-        || type.equals("Float")
-        || type.equals("Short")
-        || type.equals("Byte")
-        || type.equals("Character")
-        || type.equals("Boolean")
-        || type.equals("Number")
-        || type.equals("Class")
-        || type.equals("Void");
+  private static String rawTypeName(String typeName) {
+    int generic = typeName.indexOf('<');
+    return generic < 0 ? typeName : typeName.substring(0, generic);
   }
 
   private String getMethodFullName(CompilationUnit cu, MethodDeclaration method) {
@@ -321,23 +947,26 @@ public class DependencyAnalyzer {
         cu.getPackageDeclaration().map(pd -> pd.getNameAsString()).orElse("default");
 
     String className =
-        method
-            .findAncestor(com.github.javaparser.ast.body.ClassOrInterfaceDeclaration.class)
+        Ancestors.nearest(method, com.github.javaparser.ast.body.ClassOrInterfaceDeclaration.class)
             .map(c -> c.getNameAsString())
             .orElse("Unknown");
 
     String methodName = method.getNameAsString();
 
-    // Get parameter types
+    // Get parameter types; the solver is only needed for names the resolver cannot vouch for
     String params =
         method.getParameters().stream()
             .map(
                 p -> {
+                  String known = typeNames.qualifyIfKnown(p.getType());
+                  if (known != null) {
+                    return known;
+                  }
                   try {
                     return p.getType().resolve().describe();
                   } catch (Exception e) {
-                    // Fallback to simple name if resolution fails
-                    return getFullyQualifiedTypeName(cu, p.getType().asString());
+                    // Fallback to the resolver's guess if resolution fails
+                    return typeNames.qualify(p.getType());
                   }
                 })
             .collect(Collectors.joining(", "));
@@ -346,23 +975,12 @@ public class DependencyAnalyzer {
   }
 
   public Map<String, List<MethodMetadata>> analyzeProject(String projectRoot) throws IOException {
-    Path rootPath = Paths.get(projectRoot);
-
-    List<Path> javaFiles =
-        Files.walk(rootPath)
-            .filter(p -> p.toString().endsWith(".java"))
-            .collect(Collectors.toList());
+    return analyzeProject(projectRoot, 1);
+  }
 
-    Map<String, List<MethodMetadata>> allDependencies = new HashMap<>();
-    for (Path javaFile : javaFiles) {
-      try {
-        // System.out.println("Analyzing: " + javaFile);
-        Map<String, List<MethodMetadata>> dependencies = analyzeFile(javaFile.toString());
-        allDependencies.putAll(dependencies);
-      } catch (Exception e) {
-        System.err.println("  Error analyzing: " + e.getMessage());
-      }
-    }
-    return allDependencies;
+  public Map<String, List<MethodMetadata>> analyzeProject(String projectRoot, int threads)
+      throws IOException {
+    new AnalysisPipeline(parserConfigurations(threads), threads).addVisitor(this).run(projectRoot);
+    return getDependencies();
   }
 }
@@ -0,0 +1,174 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bounded transitive-closure queries over a {@link CallGraph}: everything a method or endpoint
+ * reaches within a depth and size limit, optionally restricted to some packages.
+ *
+ * <p>Queries walk the graph's CSR arrays breadth-first with per-thread scratch buffers, so no
+ * allocation happens per visited node and one instance can serve many threads at once.
+ */
+public class DependencyClosure {
+
+  /** Limits and filters of a closure query. Empty package lists mean "no restriction". */
+  public static class Limits {
+    public static final Limits UNBOUNDED =
+        new Limits(
+            Integer.MAX_VALUE,
+            Integer.MAX_VALUE,
+            Collections.emptyList(),
+            Collections.emptyList());
+
+    public final int maxDepth;
+    public final int maxNodes;
+    public final List<String> includePackages;
+    public final List<String> excludePackages;
+
+    public Limits(
+        int maxDepth, int maxNodes, List<String> includePackages, List<String> excludePackages) {
+      this.maxDepth = maxDepth;
+      this.maxNodes = maxNodes;
+      this.includePackages = includePackages;
+      this.excludePackages = excludePackages;
+    }
+  }
+
+  // Visit marks are generation stamps, so buffers never need clearing between queries
+  private static class Scratch {
+    final int[] visited;
+    final int[] queue;
+    int generation = 0;
+
+    Scratch(int size) {
+      visited = new int[size];
+      queue = new int[size];
+    }
+  }
+
+  private final CallGraph graph;
+  private final ThreadLocal<Scratch> scratch;
+
+  public DependencyClosure(CallGraph graph) {
+    this.graph = graph;
+    this.scratch = ThreadLocal.withInitial(() -> new Scratch(graph.size()));
+  }
+
+  public List<String> closure(APIEndpoint endpoint, Limits limits) {
+    return closure(endpoint.methodMetadata.toString(), limits);
+  }
+
+  /**
+   * Signatures reachable from {@code signature} in breadth-first order, excluding the start
+   * method. Methods outside the package filters are neither returned nor expanded.
+   */
+  public List<String> closure(String signature, Limits limits) {
+    int root = graph.findCaller(signature);
+    if (root < 0) {
+      return Collections.emptyList();
+    }
+    Scratch s = scratch.get();
+    int stamp = ++s.generation;
+    if (stamp == 0) {
+      Arrays.fill(s.visited, 0);
+      stamp = s.generation = 1;
+    }
+
+    List<String> result = new ArrayList<>();
+    int head = 0;
+    int tail = 0;
+    s.visited[root] = stamp;
+    s.queue[tail++] = root;
+    int depthEnd = tail;
+    int depth = 0;
+    while (head < tail && depth < limits.maxDepth) {
+      int method = s.queue[head++];
+      for (int i = graph.offsets[method]; i < graph.offsets[method + 1]; i++) {
+        int callee = graph.targets[i];
+        if (s.visited[callee] == stamp) {
+          continue;
+        }
+        s.visited[callee] = stamp;
+        if (!accept(graph.signature(callee), limits)) {
+          continue;
+        }
+        result.add(graph.signature(callee));
+        if (result.size() >= limits.maxNodes) {
+          return result;
+        }
+        s.queue[tail++] = callee;
+      }
+      if (head == depthEnd) {
+        depth++;
+        depthEnd = tail;
+      }
+    }
+    return result;
+  }
+
+  private static boolean accept(String signature, Limits limits) {
+    for (String excluded : limits.excludePackages) {
+      if (signature.startsWith(excluded)) {
+        return false;
+      }
+    }
+    if (limits.includePackages.isEmpty()) {
+      return true;
+    }
+    for (String included : limits.includePackages) {
+      if (signature.startsWith(included)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Prints the closure of a method as a JSON array.
+   *
+   * <p>Usage: DependencyClosure dependencies.json signature [--max-depth N] [--max-nodes N]
+   * [--include prefix]... [--exclude prefix]...
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      printUsage();
+      return;
+    }
+    int maxDepth = Integer.MAX_VALUE;
+    int maxNodes = Integer.MAX_VALUE;
+    List<String> include = new ArrayList<>();
+    List<String> exclude = new ArrayList<>();
+    try {
+      for (int i = 2; i < args.length; i++) {
+        switch (args[i]) {
+          case "--max-depth": maxDepth = CommandLineArgs.positiveInt(args, ++i); break;
+          case "--max-nodes": maxNodes = CommandLineArgs.positiveInt(args, ++i); break;
+          case "--include": include.add(CommandLineArgs.value(args, ++i)); break;
+          case "--exclude": exclude.add(CommandLineArgs.value(args, ++i)); break;
+          default: throw new IllegalArgumentException("Unknown option " + args[i]);
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      System.err.println("Error: " + e.getMessage());
+      printUsage();
+      return;
+    }
+    DependencyClosure closure = new DependencyClosure(CallGraph.readJson(args[0]));
+    List<String> result = closure.closure(args[1], new Limits(maxDepth, maxNodes, include, exclude));
+    JsonOutput out = new JsonOutput(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+    out.stringArray(result).raw("\n").flush();
+  }
+
+  private static void printUsage() {
+    System.out.println(
+        "Usage: java -cp java-dependency-analyzer.jar com.example.DependencyClosure "
+            + "<dependencies.json> <method-signature> [--max-depth N] [--max-nodes N] "
+            + "[--include package-prefix]... [--exclude package-prefix]...");
+  }
+}
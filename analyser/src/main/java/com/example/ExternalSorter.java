@@ -0,0 +1,337 @@
+package com.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Sorted map from strings to string lists that keeps at most about {@code memoryLimit} bytes on
+ * the heap. When the buffer is full it is written to a sorted run file; {@link #merge} then streams
+ * all entries in key order with a k-way merge of the runs. A later put of the same key replaces the
+ * earlier one, like in a map.
+ *
+ * <p>Heap use is estimated from string lengths, so the limit is approximate. Thread-safe: a full
+ * buffer is written by the thread whose put filled it, outside the lock. A sorter is merged once,
+ * after the last put has returned, and then closed, which deletes its runs.
+ */
+public class ExternalSorter implements Closeable {
+  // Runs merged at once; more runs are first merged into fewer, larger ones
+  private static final int MAX_FAN_IN = 64;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /** Receives the merged entries in key order. */
+  public interface Consumer {
+    void accept(String key, List<String> values) throws IOException;
+  }
+
+  private final Path directory;
+  private final String name;
+  private final long memoryLimit;
+  private TreeMap<String, List<String>> buffer = new TreeMap<>();
+  private long bufferedBytes;
+  // Oldest first, so a key in a later run wins; a run takes its place when its buffer is swapped out
+  private final List<Path> runs = new ArrayList<>();
+  private int runsWritten;
+  // Runs swapped out of the buffer and still being written outside the lock
+  private int pendingRuns;
+
+  /**
+   * @param directory where run files are written
+   * @param name prefix of the run file names
+   * @param memoryLimit estimated heap bytes buffered before a run is written
+   */
+  public ExternalSorter(Path directory, String name, long memoryLimit) {
+    this.directory = directory;
+    this.name = name;
+    this.memoryLimit = memoryLimit;
+  }
+
+  /**
+   * Adds an entry. When the buffer is full, the caller writes it to a run after swapping in an
+   * empty one, so other threads keep putting while the run is written.
+   */
+  public void put(String key, List<String> values) throws IOException {
+    TreeMap<String, List<String>> full;
+    Path run;
+    synchronized (this) {
+      List<String> previous = buffer.put(key, values);
+      bufferedBytes += estimate(key, values) - (previous == null ? 0 : estimate(key, previous));
+      if (bufferedBytes <= memoryLimit) {
+        return;
+      }
+      run = newRun();
+      full = buffer;
+      buffer = new TreeMap<>();
+      bufferedBytes = 0;
+      pendingRuns++;
+    }
+    try {
+      writeRun(full, run);
+    } finally {
+      synchronized (this) {
+        pendingRuns--;
+        notifyAll();
+      }
+    }
+  }
+
+  /** Number of run files written so far. */
+  public synchronized int runCount() {
+    return runsWritten;
+  }
+
+  /** Streams every entry in key order, the last value put for each key. */
+  public synchronized void merge(Consumer consumer) throws IOException {
+    awaitPendingRuns();
+    if (runs.isEmpty()) {
+      for (Map.Entry<String, List<String>> e : buffer.entrySet()) {
+        consumer.accept(e.getKey(), e.getValue());
+      }
+      return;
+    }
+    spill();
+    while (runs.size() > MAX_FAN_IN) {
+      // The oldest runs become one run that is still older than the rest
+      List<Path> oldest = new ArrayList<>(runs.subList(0, MAX_FAN_IN));
+      Path merged = newRunFile();
+      try (RunWriter writer = new RunWriter(merged)) {
+        mergeRuns(oldest, writer::write);
+      }
+      for (Path run : oldest) {
+        Files.deleteIfExists(run);
+      }
+      runs.subList(0, MAX_FAN_IN).clear();
+      runs.add(0, merged);
+    }
+    mergeRuns(runs, consumer);
+  }
+
+  /** Deletes the run files. */
+  @Override
+  public synchronized void close() throws IOException {
+    awaitPendingRuns();
+    for (Path run : runs) {
+      Files.deleteIfExists(run);
+    }
+    runs.clear();
+    buffer = new TreeMap<>();
+    bufferedBytes = 0;
+  }
+
+  private void awaitPendingRuns() throws IOException {
+    while (pendingRuns > 0) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while runs were written");
+      }
+    }
+  }
+
+  // Called with the lock held
+  private void spill() throws IOException {
+    if (buffer.isEmpty()) {
+      return;
+    }
+    writeRun(buffer, newRun());
+    buffer = new TreeMap<>();
+    bufferedBytes = 0;
+  }
+
+  // Reserves the next run in age order; called with the lock held
+  private Path newRun() throws IOException {
+    Path run = newRunFile();
+    runs.add(run);
+    return run;
+  }
+
+  // A run that fails to be written is dropped, with its entries, and the error is thrown
+  private void writeRun(TreeMap<String, List<String>> entries, Path run) throws IOException {
+    try (RunWriter writer = new RunWriter(run)) {
+      for (Map.Entry<String, List<String>> e : entries.entrySet()) {
+        writer.write(e.getKey(), e.getValue());
+      }
+    } catch (IOException | RuntimeException e) {
+      synchronized (this) {
+        runs.remove(run);
+      }
+      Files.deleteIfExists(run);
+      throw e;
+    }
+    synchronized (this) {
+      runsWritten++;
+    }
+    Metrics.get().increment(Metrics.SPILLED_RUNS);
+  }
+
+  private Path newRunFile() throws IOException {
+    Files.createDirectories(directory);
+    return Files.createTempFile(directory, name + "-", ".run");
+  }
+
+  private static void mergeRuns(List<Path> files, Consumer consumer) throws IOException {
+    // Smallest key first; of equal keys the newest run first
+    PriorityQueue<RunReader> queue =
+        new PriorityQueue<>(
+            Comparator.comparing((RunReader r) -> r.key)
+                .thenComparing(r -> r.age, Comparator.reverseOrder()));
+    List<RunReader> readers = new ArrayList<>();
+    try {
+      for (int i = 0; i < files.size(); i++) {
+        RunReader reader = new RunReader(files.get(i), i);
+        readers.add(reader);
+        if (reader.next()) {
+          queue.add(reader);
+        }
+      }
+      while (!queue.isEmpty()) {
+        RunReader newest = queue.poll();
+        String key = newest.key;
+        consumer.accept(key, newest.values);
+        if (newest.next()) {
+          queue.add(newest);
+        }
+        // Older values of the same key are dropped
+        while (!queue.isEmpty() && queue.peek().key.equals(key)) {
+          RunReader older = queue.poll();
+          if (older.next()) {
+            queue.add(older);
+          }
+        }
+      }
+    } finally {
+      for (RunReader reader : readers) {
+        reader.close();
+      }
+    }
+  }
+
+  // Rough heap footprint of a buffered entry: tree node, list and compact strings
+  private static long estimate(String key, List<String> values) {
+    long bytes = 64 + 48 + key.length();
+    for (String value : values) {
+      bytes += 8 + 48 + value.length();
+    }
+    return bytes;
+  }
+
+  /**
+   * Parses sizes like {@code 512m}, {@code 2g}, {@code 64k} or a plain number of bytes.
+   *
+   * @throws IllegalArgumentException if {@code size} is not a positive size
+   */
+  public static long parseSize(String size) {
+    String s = size.trim().toLowerCase(Locale.ROOT);
+    long unit = 1;
+    if (s.endsWith("b")) {
+      s = s.substring(0, s.length() - 1);
+    }
+    if (s.endsWith("k")) {
+      unit = 1L << 10;
+    } else if (s.endsWith("m")) {
+      unit = 1L << 20;
+    } else if (s.endsWith("g")) {
+      unit = 1L << 30;
+    }
+    if (unit > 1) {
+      s = s.substring(0, s.length() - 1);
+    }
+    long amount;
+    try {
+      amount = Long.parseLong(s);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid size '" + size + "'");
+    }
+    if (amount <= 0 || amount > Long.MAX_VALUE / unit) {
+      throw new IllegalArgumentException("Size out of range: " + size);
+    }
+    return amount * unit;
+  }
+
+  // Entries as [true, key, value count, values...], ended by false
+  private static class RunWriter implements Closeable {
+    private final DataOutputStream out;
+
+    RunWriter(Path file) throws IOException {
+      out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+    }
+
+    void write(String key, List<String> values) throws IOException {
+      out.writeBoolean(true);
+      writeString(key);
+      out.writeInt(values.size());
+      for (String value : values) {
+        writeString(value);
+      }
+    }
+
+    private void writeString(String s) throws IOException {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        out.writeBoolean(false);
+      } finally {
+        out.close();
+      }
+    }
+  }
+
+  private static class RunReader implements Closeable {
+    private final DataInputStream in;
+    final int age;
+    String key;
+    List<String> values;
+
+    RunReader(Path file, int age) throws IOException {
+      this.in =
+          new DataInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE));
+      this.age = age;
+    }
+
+    /** Reads the next entry; false at the end of the run. */
+    boolean next() throws IOException {
+      if (!in.readBoolean()) {
+        return false;
+      }
+      key = readString();
+      int count = in.readInt();
+      values = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        values.add(readString());
+      }
+      return true;
+    }
+
+    private String readString() throws IOException {
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+}
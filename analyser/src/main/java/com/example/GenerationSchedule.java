@@ -0,0 +1,534 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plans test generation over all API endpoints of a {@link CallGraph}.
+ *
+ * <p>The strongly connected components of the graph are found with an iterative Tarjan walk over
+ * its CSR arrays and layered callees first: layer 0 holds the analysed methods that call no other
+ * analysed method, and every method sits one layer above the highest component it calls. Members
+ * of a cycle share their component's layer. Methods that were not analysed, typically library
+ * calls, are in no layer.
+ *
+ * <p>Endpoints are then clustered by the overlap (Jaccard index) of the analysed methods they
+ * reach. The most similar pairs are merged first, up to a cluster size limit, so each cluster is
+ * a batch whose context is loaded once. Methods reached by most endpoints would make every pair
+ * look alike and are left out of the overlap; they are still part of each cluster's context. So
+ * are methods reached by more than {@value #MAX_REACHERS} endpoints, which bounds the pairs
+ * counted to a multiple of the methods the endpoints reach. Clusters are ordered largest first, so
+ * workers that each take the next cluster balance their load.
+ */
+public class GenerationSchedule {
+  public static final String FILE = "schedule.json";
+  // Most endpoints a method may be reached by to count towards their pairs' overlap
+  static final int MAX_REACHERS = 256;
+
+  /** Clustering thresholds. */
+  public static class Options {
+    public static final Options DEFAULT = new Options(0.25, 16, 0.5);
+
+    /** Smallest Jaccard index of two endpoints' dependencies for them to share a cluster. */
+    public final double minOverlap;
+    /** Most endpoints in one cluster. */
+    public final int maxClusterSize;
+    /** Methods reached by more than this share of the endpoints do not count as overlap. */
+    public final double maxShare;
+
+    public Options(double minOverlap, int maxClusterSize, double maxShare) {
+      this.minOverlap = minOverlap;
+      this.maxClusterSize = maxClusterSize;
+      this.maxShare = maxShare;
+    }
+  }
+
+  /** Endpoints to generate together and the analysed methods they reach, callees first. */
+  public static class Cluster {
+    public final List<APIEndpoint> endpoints;
+    public final List<String> context;
+    /** Context methods reached by more than one endpoint of the cluster. */
+    public final int shared;
+
+    Cluster(List<APIEndpoint> endpoints, List<String> context, int shared) {
+      this.endpoints = endpoints;
+      this.context = context;
+      this.shared = shared;
+    }
+  }
+
+  private final CallGraph graph;
+  // Component of each method id; components are numbered callees first
+  private final int[] component;
+  private final int componentCount;
+  // Members of component c are members[memberOffsets[c] .. memberOffsets[c + 1] - 1]
+  private final int[] memberOffsets;
+  private final int[] members;
+  // Layer of each component, -1 for methods that were not analysed
+  private final int[] layer;
+  private final int layerCount;
+  private final List<Cluster> clusters;
+
+  public GenerationSchedule(CallGraph graph, List<APIEndpoint> endpoints) {
+    this(graph, endpoints, Options.DEFAULT);
+  }
+
+  public GenerationSchedule(CallGraph graph, List<APIEndpoint> endpoints, Options options) {
+    this.graph = graph;
+    this.component = new int[graph.size()];
+    this.componentCount = findComponents();
+
+    memberOffsets = new int[componentCount + 1];
+    for (int c : component) {
+      memberOffsets[c + 1]++;
+    }
+    for (int c = 0; c < componentCount; c++) {
+      memberOffsets[c + 1] += memberOffsets[c];
+    }
+    members = new int[graph.size()];
+    int[] fill = Arrays.copyOf(memberOffsets, componentCount);
+    for (int method = 0; method < component.length; method++) {
+      members[fill[component[method]]++] = method;
+    }
+
+    layer = new int[componentCount];
+    int maxLayer = -1;
+    for (int c = 0; c < componentCount; c++) {
+      layer[c] = layerOf(c);
+      maxLayer = Math.max(maxLayer, layer[c]);
+    }
+    layerCount = maxLayer + 1;
+    clusters = cluster(endpoints, options);
+  }
+
+  // Tarjan's algorithm with explicit stacks; returns the number of components
+  private int findComponents() {
+    int n = graph.size();
+    int[] index = new int[n];
+    int[] low = new int[n];
+    Arrays.fill(index, -1);
+    int[] stack = new int[n];
+    boolean[] onStack = new boolean[n];
+    int[] path = new int[n];
+    int[] nextEdge = new int[n];
+    int counter = 0;
+    int components = 0;
+    int sp = 0;
+    for (int root = 0; root < n; root++) {
+      if (index[root] >= 0) {
+        continue;
+      }
+      int depth = 0;
+      path[depth] = root;
+      nextEdge[depth++] = graph.offsets[root];
+      index[root] = low[root] = counter++;
+      stack[sp++] = root;
+      onStack[root] = true;
+      while (depth > 0) {
+        int method = path[depth - 1];
+        if (nextEdge[depth - 1] < graph.offsets[method + 1]) {
+          int callee = graph.targets[nextEdge[depth - 1]++];
+          if (index[callee] < 0) {
+            index[callee] = low[callee] = counter++;
+            stack[sp++] = callee;
+            onStack[callee] = true;
+            path[depth] = callee;
+            nextEdge[depth++] = graph.offsets[callee];
+          } else if (onStack[callee]) {
+            low[method] = Math.min(low[method], index[callee]);
+          }
+          continue;
+        }
+        depth--;
+        if (low[method] == index[method]) {
+          // Every component this one calls was completed before it
+          int member;
+          do {
+            member = stack[--sp];
+            onStack[member] = false;
+            component[member] = components;
+          } while (member != method);
+          components++;
+        }
+        if (depth > 0) {
+          int caller = path[depth - 1];
+          low[caller] = Math.min(low[caller], low[method]);
+        }
+      }
+    }
+    return components;
+  }
+
+  // Components are numbered callees first, so the layers of all callees are already known
+  private int layerOf(int c) {
+    int first = members[memberOffsets[c]];
+    if (!graph.isCaller(first)) {
+      return -1;
+    }
+    int highest = -1;
+    for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+      int method = members[m];
+      for (int i = graph.offsets[method]; i < graph.offsets[method + 1]; i++) {
+        int callee = component[graph.targets[i]];
+        if (callee != c) {
+          highest = Math.max(highest, layer[callee]);
+        }
+      }
+    }
+    return highest + 1;
+  }
+
+  private List<Cluster> cluster(List<APIEndpoint> endpoints, Options options) {
+    int count = endpoints.size();
+    int[][] reached = new int[count][];
+    int[] visited = new int[graph.size()];
+    int[] queue = new int[graph.size()];
+    for (int e = 0; e < count; e++) {
+      int root = graph.findCaller(endpoints.get(e).methodMetadata.toString());
+      reached[e] = reach(root, visited, queue, e + 1);
+    }
+
+    // Endpoints reaching each method, to count the methods each pair of endpoints shares; method
+    // m is reached by reachers[reacherOffsets[m] .. reacherOffsets[m + 1] - 1], in endpoint order
+    int[] reacherOffsets = new int[graph.size() + 1];
+    for (int[] methods : reached) {
+      for (int method : methods) {
+        reacherOffsets[method + 1]++;
+      }
+    }
+    for (int m = 0; m < graph.size(); m++) {
+      reacherOffsets[m + 1] += reacherOffsets[m];
+    }
+    int[] reachers = new int[reacherOffsets[graph.size()]];
+    int[] fill = Arrays.copyOf(reacherOffsets, graph.size());
+    for (int e = 0; e < count; e++) {
+      for (int method : reached[e]) {
+        reachers[fill[method]++] = e;
+      }
+    }
+    int maxReachers = Math.min(MAX_REACHERS, Math.max(2, (int) (options.maxShare * count)));
+    int[] counted = new int[count];
+    PairCounts sharedByPair = new PairCounts();
+    for (int m = 0; m < graph.size(); m++) {
+      int from = reacherOffsets[m];
+      int to = reacherOffsets[m + 1];
+      if (to - from < 1 || to - from > maxReachers) {
+        continue;
+      }
+      for (int i = from; i < to; i++) {
+        counted[reachers[i]]++;
+        for (int j = i + 1; j < to; j++) {
+          sharedByPair.increment((long) reachers[i] * count + reachers[j]);
+        }
+      }
+    }
+
+    List<double[]> pairs = new ArrayList<>();
+    for (int slot = 0; slot < sharedByPair.capacity(); slot++) {
+      long pair = sharedByPair.pairAt(slot);
+      if (pair < 0) {
+        continue;
+      }
+      int a = (int) (pair / count);
+      int b = (int) (pair % count);
+      int shared = sharedByPair.countAt(slot);
+      double overlap = (double) shared / (counted[a] + counted[b] - shared);
+      if (overlap >= options.minOverlap) {
+        pairs.add(new double[] {overlap, a, b});
+      }
+    }
+    // Most similar pairs first; ties in endpoint order so the schedule is reproducible
+    pairs.sort(
+        Comparator.<double[]>comparingDouble(p -> -p[0])
+            .thenComparingDouble(p -> p[1])
+            .thenComparingDouble(p -> p[2]));
+
+    int[] parent = new int[count];
+    int[] size = new int[count];
+    for (int e = 0; e < count; e++) {
+      parent[e] = e;
+      size[e] = 1;
+    }
+    for (double[] pair : pairs) {
+      int a = find(parent, (int) pair[1]);
+      int b = find(parent, (int) pair[2]);
+      if (a != b && size[a] + size[b] <= options.maxClusterSize) {
+        parent[Math.max(a, b)] = Math.min(a, b);
+        size[Math.min(a, b)] += size[Math.max(a, b)];
+      }
+    }
+
+    Map<Integer, List<Integer>> groups = new HashMap<>();
+    for (int e = 0; e < count; e++) {
+      groups.computeIfAbsent(find(parent, e), k -> new ArrayList<>()).add(e);
+    }
+    List<Cluster> result = new ArrayList<>();
+    for (int e = 0; e < count; e++) {
+      List<Integer> group = groups.get(e);
+      if (group != null) {
+        result.add(newCluster(endpoints, reached, group));
+      }
+    }
+    result.sort(
+        Comparator.comparingInt((Cluster c) -> -c.endpoints.size())
+            .thenComparingInt(c -> -c.context.size()));
+    return result;
+  }
+
+  /** Counts per endpoint pair in open addressing, without boxing a key or count per pair. */
+  private static final class PairCounts {
+    private long[] pairs = newPairs(1 << 10);
+    private int[] counts = new int[1 << 10];
+    private int size;
+
+    private static long[] newPairs(int capacity) {
+      long[] pairs = new long[capacity];
+      Arrays.fill(pairs, -1);
+      return pairs;
+    }
+
+    void increment(long pair) {
+      if (2 * (size + 1) > pairs.length) {
+        grow();
+      }
+      int slot = slotOf(pairs, pair);
+      if (pairs[slot] < 0) {
+        pairs[slot] = pair;
+        size++;
+      }
+      counts[slot]++;
+    }
+
+    int capacity() {
+      return pairs.length;
+    }
+
+    /** The pair in {@code slot}, or -1 if the slot is empty. */
+    long pairAt(int slot) {
+      return pairs[slot];
+    }
+
+    int countAt(int slot) {
+      return counts[slot];
+    }
+
+    // The slot holding pair, or the empty slot where it belongs
+    private static int slotOf(long[] pairs, long pair) {
+      int mask = pairs.length - 1;
+      long h = pair * 0x9E3779B97F4A7C15L;
+      int slot = (int) (h ^ (h >>> 32)) & mask;
+      while (pairs[slot] >= 0 && pairs[slot] != pair) {
+        slot = (slot + 1) & mask;
+      }
+      return slot;
+    }
+
+    private void grow() {
+      long[] oldPairs = pairs;
+      int[] oldCounts = counts;
+      pairs = newPairs(oldPairs.length * 2);
+      counts = new int[oldPairs.length * 2];
+      for (int i = 0; i < oldPairs.length; i++) {
+        if (oldPairs[i] >= 0) {
+          int slot = slotOf(pairs, oldPairs[i]);
+          pairs[slot] = oldPairs[i];
+          counts[slot] = oldCounts[i];
+        }
+      }
+    }
+  }
+
+  private static int find(int[] parent, int e) {
+    while (parent[e] != e) {
+      parent[e] = parent[parent[e]];
+      e = parent[e];
+    }
+    return e;
+  }
+
+  // Analysed methods reachable from root, excluding root itself; visit marks are stamped
+  private int[] reach(int root, int[] visited, int[] queue, int stamp) {
+    if (root < 0) {
+      return new int[0];
+    }
+    int head = 0;
+    int tail = 0;
+    visited[root] = stamp;
+    queue[tail++] = root;
+    while (head < tail) {
+      int method = queue[head++];
+      for (int i = graph.offsets[method]; i < graph.offsets[method + 1]; i++) {
+        int callee = graph.targets[i];
+        if (visited[callee] != stamp && graph.isCaller(callee)) {
+          visited[callee] = stamp;
+          queue[tail++] = callee;
+        }
+      }
+    }
+    return Arrays.copyOfRange(queue, 1, tail);
+  }
+
+  private Cluster newCluster(List<APIEndpoint> endpoints, int[][] reached, List<Integer> group) {
+    List<APIEndpoint> clusterEndpoints = new ArrayList<>();
+    Map<Integer, Integer> reachers = new HashMap<>();
+    for (int e : group) {
+      clusterEndpoints.add(endpoints.get(e));
+      for (int method : reached[e]) {
+        reachers.merge(method, 1, Integer::sum);
+      }
+    }
+    List<Integer> methods = new ArrayList<>(reachers.keySet());
+    methods.sort(
+        Comparator.comparingInt((Integer m) -> layer[component[m]])
+            .thenComparing(graph::signature));
+    List<String> context = new ArrayList<>(methods.size());
+    int shared = 0;
+    for (int method : methods) {
+      context.add(graph.signature(method));
+      if (reachers.get(method) > 1) {
+        shared++;
+      }
+    }
+    return new Cluster(clusterEndpoints, context, shared);
+  }
+
+  public int componentCount() {
+    return componentCount;
+  }
+
+  public int layerCount() {
+    return layerCount;
+  }
+
+  /** Layer of {@code signature}, or -1 if it is unknown or was not analysed. */
+  public int layer(String signature) {
+    int id = graph.id(signature);
+    return id < 0 ? -1 : layer[component[id]];
+  }
+
+  /** Analysed methods by layer, callees first; each layer in signature order. */
+  public List<List<String>> layers() {
+    List<List<String>> layers = new ArrayList<>(layerCount);
+    for (int l = 0; l < layerCount; l++) {
+      layers.add(new ArrayList<>());
+    }
+    for (int method = 0; method < component.length; method++) {
+      int l = layer[component[method]];
+      if (l >= 0) {
+        layers.get(l).add(graph.signature(method));
+      }
+    }
+    layers.forEach(l -> l.sort(null));
+    return layers;
+  }
+
+  /** Components with more than one method, i.e. mutually recursive methods, callees first. */
+  public List<List<String>> cycles() {
+    List<List<String>> cycles = new ArrayList<>();
+    for (int c = 0; c < componentCount; c++) {
+      if (memberOffsets[c + 1] - memberOffsets[c] > 1) {
+        List<String> cycle = new ArrayList<>();
+        for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+          cycle.add(graph.signature(members[m]));
+        }
+        cycle.sort(null);
+        cycles.add(cycle);
+      }
+    }
+    return cycles;
+  }
+
+  /** Endpoint clusters, largest first. */
+  public List<Cluster> clusters() {
+    return clusters;
+  }
+
+  public void writeJson(Path file) throws IOException {
+    try (JsonOutput out = new JsonOutput(file)) {
+      write(out);
+    }
+  }
+
+  private void write(JsonOutput out) throws IOException {
+    out.raw("{\n  \"components\": " + componentCount)
+        .raw(",\n  \"layers\": [");
+    int count = 0;
+    for (List<String> methods : layers()) {
+      out.raw(count++ == 0 ? "\n    " : ",\n    ").stringArray(methods);
+    }
+    out.raw("\n  ],\n  \"cycles\": [");
+    count = 0;
+    for (List<String> cycle : cycles()) {
+      out.raw(count++ == 0 ? "\n    " : ",\n    ").stringArray(cycle);
+    }
+    out.raw("\n  ],\n  \"clusters\": [");
+    count = 0;
+    for (Cluster cluster : clusters) {
+      List<String> endpoints = new ArrayList<>(cluster.endpoints.size());
+      for (APIEndpoint endpoint : cluster.endpoints) {
+        endpoints.add(endpoint.methodMetadata.toString());
+      }
+      out.raw(count++ == 0 ? "\n    " : ",\n    ")
+          .raw("{\"endpoints\": ").stringArray(endpoints)
+          .raw(", \"shared\": " + cluster.shared)
+          .raw(", \"context\": ").stringArray(cluster.context)
+          .raw("}");
+    }
+    out.raw("\n  ]\n}\n");
+  }
+
+  /**
+   * Prints the schedule of an output directory as JSON.
+   *
+   * <p>Usage: GenerationSchedule output-dir [--min-overlap X] [--max-cluster N] [--max-share X]
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1 || args[0].startsWith("--")) {
+      printUsage();
+      return;
+    }
+    Options defaults = Options.DEFAULT;
+    double minOverlap = defaults.minOverlap;
+    int maxClusterSize = defaults.maxClusterSize;
+    double maxShare = defaults.maxShare;
+    try {
+      for (int i = 1; i < args.length; i++) {
+        switch (args[i]) {
+          case "--min-overlap": minOverlap = CommandLineArgs.fraction(args, ++i); break;
+          case "--max-cluster": maxClusterSize = CommandLineArgs.positiveInt(args, ++i); break;
+          case "--max-share": maxShare = CommandLineArgs.fraction(args, ++i); break;
+          default: throw new IllegalArgumentException("Unknown option " + args[i]);
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      System.err.println("Error: " + e.getMessage());
+      printUsage();
+      return;
+    }
+    Path outputDir = Paths.get(args[0]);
+    GenerationSchedule schedule =
+        new GenerationSchedule(
+            ShardedOutput.readCallGraph(outputDir),
+            APIEndpoint.readJson(outputDir.resolve(APIEndpoint.FILE)),
+            new Options(minOverlap, maxClusterSize, maxShare));
+    try (JsonOutput out =
+        new JsonOutput(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+      schedule.write(out);
+    }
+  }
+
+  private static void printUsage() {
+    System.out.println(
+        "Usage: java -cp java-dependency-analyzer.jar com.example.GenerationSchedule "
+            + "<output-dir> [--min-overlap 0..1] [--max-cluster N] [--max-share 0..1]");
+  }
+}
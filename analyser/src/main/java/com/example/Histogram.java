@@ -0,0 +1,74 @@
+package com.example;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe latency histogram with power-of-two nanosecond buckets. Recording is a few atomic
+ * adds, so it can sit on per-call paths; percentiles are accurate to within a factor of two.
+ */
+public class Histogram {
+  private static final int BUCKETS = 64;
+
+  // Bucket i counts values in [2^(i-1), 2^i) ns; bucket 0 counts zero
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder total = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(value));
+    count.increment();
+    total.add(value);
+    max.accumulateAndGet(value, Math::max);
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  /** Upper bound in nanoseconds of the bucket holding the given percentile, 0 when empty. */
+  public long percentile(double percentile) {
+    long n = getCount();
+    if (n == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(n * percentile / 100.0);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= Math.max(1, rank)) {
+        return Math.min(upperBound(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /** Writes count, mean, max, percentiles and non-empty buckets as a JSON object in microseconds. */
+  public void writeJson(JsonOutput out) throws IOException {
+    long n = getCount();
+    out.raw("{\"count\": " + n)
+        .raw(", \"meanMicros\": " + (n == 0 ? 0 : total.sum() / n / 1000))
+        .raw(", \"p50Micros\": " + percentile(50) / 1000)
+        .raw(", \"p90Micros\": " + percentile(90) / 1000)
+        .raw(", \"p99Micros\": " + percentile(99) / 1000)
+        .raw(", \"maxMicros\": " + max.get() / 1000)
+        .raw(", \"buckets\": [");
+    int written = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      long bucketCount = counts.get(i);
+      if (bucketCount > 0) {
+        out.raw(written++ == 0 ? "" : ", ")
+            .raw("{\"upToMicros\": " + upperBound(i) / 1000.0 + ", \"count\": " + bucketCount + "}");
+      }
+    }
+    out.raw("]}");
+  }
+
+  private static long upperBound(int bucket) {
+    return bucket == 0 ? 0 : bucket >= 63 ? Long.MAX_VALUE : 1L << bucket;
+  }
+}
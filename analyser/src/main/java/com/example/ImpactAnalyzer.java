@@ -0,0 +1,141 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the API endpoints affected by a change by walking the reverse call index from the changed
+ * methods up to every endpoint that can reach them.
+ */
+public class ImpactAnalyzer {
+  private final CallGraph graph;
+  private final List<APIEndpoint> endpoints;
+  // Graph id of each endpoint's method, -1 if it was not analysed
+  private final int[] endpointIds;
+
+  public ImpactAnalyzer(CallGraph graph, List<APIEndpoint> endpoints) {
+    this.graph = graph;
+    this.endpoints = endpoints;
+    this.endpointIds = new int[endpoints.size()];
+    for (int i = 0; i < endpointIds.length; i++) {
+      endpointIds[i] = graph.findCaller(endpoints.get(i).methodMetadata.toString());
+    }
+  }
+
+  /** Endpoints that call, directly or transitively, any of {@code changedMethods}. */
+  public List<APIEndpoint> affectedEndpoints(Collection<String> changedMethods) {
+    BitSet reached = new BitSet(graph.size());
+    int[] queue = new int[graph.size()];
+    int tail = 0;
+    for (String method : changedMethods) {
+      int id = graph.id(method);
+      if (id < 0) {
+        id = graph.findCaller(method);
+      }
+      if (id >= 0 && !reached.get(id)) {
+        reached.set(id);
+        queue[tail++] = id;
+      }
+    }
+    for (int head = 0; head < tail; head++) {
+      int method = queue[head];
+      for (int i = 0; i < graph.callerCountOf(method); i++) {
+        int caller = graph.callerOf(method, i);
+        if (!reached.get(caller)) {
+          reached.set(caller);
+          queue[tail++] = caller;
+        }
+      }
+    }
+
+    List<APIEndpoint> affected = new ArrayList<>();
+    for (int i = 0; i < endpointIds.length; i++) {
+      if (endpointIds[i] >= 0 && reached.get(endpointIds[i])) {
+        affected.add(endpoints.get(i));
+      }
+    }
+    return affected;
+  }
+
+  /**
+   * Methods declared in {@code files} according to the manifest in {@code outputDir}. Paths may be
+   * relative to the analysed source root or carry any prefix in front of it.
+   */
+  public static List<String> methodsOfFiles(String outputDir, Collection<String> files)
+      throws IOException {
+    return methodsOfFiles(IncrementalIndex.readManifestKeys(Paths.get(outputDir)), files);
+  }
+
+  /** Methods declared in {@code files}, given the dependency keys of every file. */
+  public static List<String> methodsOfFiles(
+      Map<String, List<String>> keysByFile, Collection<String> files) {
+    List<String> methods = new ArrayList<>();
+    for (String file : files) {
+      String normalized = file.replace('\\', '/');
+      for (Map.Entry<String, List<String>> entry : keysByFile.entrySet()) {
+        String key = entry.getKey();
+        if (normalized.equals(key) || normalized.endsWith("/" + key)) {
+          methods.addAll(entry.getValue());
+        }
+      }
+    }
+    return methods;
+  }
+
+  /**
+   * Prints the endpoints affected by changed files or methods as a JSON array.
+   *
+   * <p>Usage: ImpactAnalyzer output-dir [--file path]... [--method signature]...
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      printUsage();
+      return;
+    }
+    List<String> files = new ArrayList<>();
+    List<String> methods = new ArrayList<>();
+    try {
+      for (int i = 1; i < args.length; i++) {
+        switch (args[i]) {
+          case "--file": files.add(CommandLineArgs.value(args, ++i)); break;
+          case "--method": methods.add(CommandLineArgs.value(args, ++i)); break;
+          default: throw new IllegalArgumentException("Unknown option " + args[i]);
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      System.err.println("Error: " + e.getMessage());
+      printUsage();
+      return;
+    }
+    methods.addAll(methodsOfFiles(args[0], files));
+
+    Path outputDir = Paths.get(args[0]);
+    ImpactAnalyzer analyzer =
+        new ImpactAnalyzer(
+            ShardedOutput.readCallGraph(outputDir),
+            APIEndpoint.readJson(outputDir.resolve(APIEndpoint.FILE)));
+    List<APIEndpoint> affected = analyzer.affectedEndpoints(methods);
+
+    try (APIEndpointWriter writer =
+        new APIEndpointWriter(
+            new JsonOutput(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)))) {
+      for (APIEndpoint endpoint : affected) {
+        writer.write(endpoint);
+      }
+    }
+  }
+
+  private static void printUsage() {
+    System.out.println(
+        "Usage: java -cp java-dependency-analyzer.jar com.example.ImpactAnalyzer "
+            + "<output-dir> [--file changed-file]... [--method method-signature]...");
+  }
+}
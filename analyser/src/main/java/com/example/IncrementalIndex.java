@@ -0,0 +1,486 @@
+package com.example;
+
+import com.github.javaparser.ast.CompilationUnit;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps dependencies, code and endpoints up to date across runs with a manifest that maps every
+ * source file to its content hash and the keys it produced.
+ *
+ * <p>{@link #prepare} loads the previous outputs, drops the results of changed and deleted files
+ * and returns the files that need analysing. Those files are then fed through the pipeline with
+ * this index as visitor. Edges from unchanged callers into a changed file are not re-resolved, so
+ * a full run is still needed after signature changes that callers depend on. Likewise, endpoints
+ * an unchanged controller inherits are not updated when only its supertype changes.
+ */
+public class IncrementalIndex implements SourceFileVisitor {
+  public static final String MANIFEST_FILE = "manifest.json";
+  // Bumped whenever the outputs change format, so older outputs are not mixed with new ones
+  private static final int MANIFEST_VERSION = 3;
+
+  private final List<Path> sourceRoots;
+  // Manifest keys are paths relative to this: the source root, or the common parent of several
+  private final Path keyBase;
+  private final Path outputDir;
+  private final DependencyAnalyzer dependencyAnalyzer;
+  private final CodeExtractor codeExtractor;
+  private final APIExtractor apiExtractor;
+
+  private final CallGraph.Builder dependencies = new CallGraph.Builder();
+  private final Map<String, String> codeMap = new ConcurrentHashMap<>();
+  private final List<APIEndpoint> endpoints = Collections.synchronizedList(new ArrayList<>());
+  // Moved out of the analyzer per file, which may be shared with the indexes of other modules
+  private final DegradedEdges degradedEdges = new DegradedEdges();
+  private final CallSites callSites = new CallSites();
+  private final Map<String, FileEntry> manifest = new ConcurrentHashMap<>();
+  // Hash, size and timestamp of files scheduled for analysis, keyed like the manifest
+  private final Map<String, FileEntry> pending = new ConcurrentHashMap<>();
+
+  /** Manifest record of one source file. */
+  static class FileEntry {
+    final String hash;
+    final long size;
+    final long lastModified;
+    final List<String> dependencyKeys;
+    final List<String> codeKeys;
+    final List<String> endpointKeys;
+
+    FileEntry(
+        String hash,
+        long size,
+        long lastModified,
+        List<String> dependencyKeys,
+        List<String> codeKeys,
+        List<String> endpointKeys) {
+      this.hash = hash;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.dependencyKeys = dependencyKeys;
+      this.codeKeys = codeKeys;
+      this.endpointKeys = endpointKeys;
+    }
+
+    FileEntry withKeys(
+        List<String> dependencyKeys, List<String> codeKeys, List<String> endpointKeys) {
+      return new FileEntry(hash, size, lastModified, dependencyKeys, codeKeys, endpointKeys);
+    }
+  }
+
+  public IncrementalIndex(
+      String projectRoot,
+      String outputDir,
+      DependencyAnalyzer dependencyAnalyzer,
+      CodeExtractor codeExtractor,
+      APIExtractor apiExtractor) {
+    this(List.of(projectRoot), outputDir, dependencyAnalyzer, codeExtractor, apiExtractor);
+  }
+
+  /**
+   * Index over several source roots, for example the modules of a Maven reactor. Manifest keys
+   * are then relative to the roots' common parent directory.
+   */
+  public IncrementalIndex(
+      List<String> sourceRoots,
+      String outputDir,
+      DependencyAnalyzer dependencyAnalyzer,
+      CodeExtractor codeExtractor,
+      APIExtractor apiExtractor) {
+    this.sourceRoots = sourceRoots.stream().map(Paths::get).collect(Collectors.toList());
+    this.keyBase = commonParent(this.sourceRoots);
+    this.outputDir = Paths.get(outputDir);
+    this.dependencyAnalyzer = dependencyAnalyzer;
+    this.codeExtractor = codeExtractor;
+    this.apiExtractor = apiExtractor;
+  }
+
+  /**
+   * Loads the previous run and works out what changed.
+   *
+   * @param full ignore any previous run and analyse every file
+   * @return the added and changed files that still need analysing
+   */
+  public List<Path> prepare(boolean full) throws IOException {
+    Metrics.Timer timer = Metrics.get().time(Metrics.WALK);
+    try {
+      return prepareTimed(full);
+    } finally {
+      timer.close();
+    }
+  }
+
+  private List<Path> prepareTimed(boolean full) throws IOException {
+    Map<String, FileEntry> previous = full ? Collections.emptyMap() : loadPrevious();
+    StaleKeys stale = new StaleKeys();
+    Set<String> seen = new HashSet<>();
+    List<Path> changed = new ArrayList<>();
+
+    for (Path javaFile : AnalysisPipeline.findJavaFiles(sourceRoots)) {
+      String key = relativeKey(javaFile);
+      seen.add(key);
+      if (check(javaFile, key, previous.get(key), stale)) {
+        changed.add(javaFile);
+      }
+    }
+
+    int deleted = 0;
+    for (Map.Entry<String, FileEntry> entry : previous.entrySet()) {
+      if (!seen.contains(entry.getKey())) {
+        stale.add(entry.getValue());
+        deleted++;
+      }
+    }
+    stale.removeFrom(this);
+
+    System.out.println(
+        "IncrementalIndex: "
+            + changed.size()
+            + " changed, "
+            + deleted
+            + " deleted, "
+            + manifest.size()
+            + " unchanged");
+    return changed;
+  }
+
+  /**
+   * Brings the index up to date with files touched since the last analysis, for example as
+   * reported by a file watcher. Touched files that no longer exist are removed, the others are
+   * checked like in {@link #prepare}.
+   *
+   * @return the touched files whose content changed and that still need analysing
+   */
+  public List<Path> update(Collection<Path> touched) throws IOException {
+    StaleKeys stale = new StaleKeys();
+    List<Path> changed = new ArrayList<>();
+    for (Path javaFile : touched) {
+      String key = relativeKey(javaFile);
+      FileEntry old = manifest.remove(key);
+      if (Files.isRegularFile(javaFile)) {
+        if (check(javaFile, key, old, stale)) {
+          changed.add(javaFile);
+        }
+      } else if (old != null) {
+        stale.add(old);
+      }
+    }
+    stale.removeFrom(this);
+    return changed;
+  }
+
+  /**
+   * Keeps the entry of an unchanged file, or schedules a changed file and marks its old keys as
+   * stale. Returns whether the file needs analysing.
+   */
+  private boolean check(Path javaFile, String key, FileEntry old, StaleKeys stale)
+      throws IOException {
+    long size = Files.size(javaFile);
+    long lastModified = Files.getLastModifiedTime(javaFile).toMillis();
+    if (old != null && old.size == size && old.lastModified == lastModified) {
+      manifest.put(key, old);
+      return false;
+    }
+    String hash = hash(javaFile);
+    if (old != null && old.hash.equals(hash)) {
+      manifest.put(
+          key,
+          new FileEntry(
+              hash, size, lastModified, old.dependencyKeys, old.codeKeys, old.endpointKeys));
+      return false;
+    }
+    if (old != null) {
+      stale.add(old);
+    }
+    pending.put(
+        key,
+        new FileEntry(
+            hash,
+            size,
+            lastModified,
+            Collections.emptyList(),
+            Collections.emptyList(),
+            Collections.emptyList()));
+    return true;
+  }
+
+  // Keys produced by changed and deleted files, removed in one go
+  private static class StaleKeys {
+    final Set<String> dependencies = new HashSet<>();
+    final Set<String> code = new HashSet<>();
+    final Set<String> endpoints = new HashSet<>();
+
+    void add(FileEntry entry) {
+      dependencies.addAll(entry.dependencyKeys);
+      code.addAll(entry.codeKeys);
+      endpoints.addAll(entry.endpointKeys);
+    }
+
+    void removeFrom(IncrementalIndex index) {
+      dependencies.forEach(index.dependencies::remove);
+      index.getDegradedEdges().removeAll(dependencies);
+      index.getCallSites().removeAll(dependencies);
+      index.codeMap.keySet().removeAll(code);
+      index.endpoints.removeIf(
+          endpoint -> endpoints.contains(endpoint.methodMetadata.toString()));
+    }
+  }
+
+  @Override
+  public void visit(SourceFile sourceFile) {
+    CompilationUnit cu = sourceFile.compilationUnit;
+    Map<String, List<String>> fileDependencies = dependencyAnalyzer.analyzeCalls(cu);
+    Map<String, String> fileCode = codeExtractor.analyzeCompilationUnit(cu, sourceFile.content);
+    List<APIEndpoint> fileEndpoints = apiExtractor.extractFromSourceFile(sourceFile);
+
+    fileDependencies.forEach(dependencies::put);
+    DegradedEdges analyzerEdges = dependencyAnalyzer.getDegradedEdges();
+    CallSites analyzerSites = dependencyAnalyzer.getCallSites();
+    for (String caller : fileDependencies.keySet()) {
+      degradedEdges.put(caller, analyzerEdges.get(caller));
+      callSites.put(caller, analyzerSites.get(caller));
+    }
+    analyzerEdges.removeAll(fileDependencies.keySet());
+    analyzerSites.removeAll(fileDependencies.keySet());
+    codeMap.putAll(fileCode);
+    endpoints.addAll(fileEndpoints);
+
+    String key = relativeKey(sourceFile.path);
+    FileEntry entry = pending.remove(key);
+    if (entry == null) {
+      return;
+    }
+    manifest.put(
+        key,
+        entry.withKeys(
+            new ArrayList<>(fileDependencies.keySet()),
+            new ArrayList<>(fileCode.keySet()),
+            fileEndpoints.stream()
+                .map(endpoint -> endpoint.methodMetadata.toString())
+                .collect(Collectors.toList())));
+  }
+
+  /** Builds the call graph of every analysed file anew; callers reading it twice keep it. */
+  public CallGraph getCallGraph() {
+    return dependencies.build();
+  }
+
+  public Map<String, String> getCodeMap() {
+    return codeMap;
+  }
+
+  public List<APIEndpoint> getEndpoints() {
+    return endpoints;
+  }
+
+  public DegradedEdges getDegradedEdges() {
+    return degradedEdges;
+  }
+
+  public CallSites getCallSites() {
+    return callSites;
+  }
+
+  /** Dependency keys each analysed file produced, keyed like the manifest. */
+  public Map<String, List<String>> getDependencyKeys() {
+    Map<String, List<String>> keys = new HashMap<>();
+    manifest.forEach((key, entry) -> keys.put(key, entry.dependencyKeys));
+    return keys;
+  }
+
+  /** Every source file the manifest knows, whether or not it still exists. */
+  public List<Path> getKnownFiles() {
+    return manifest.keySet().stream().map(keyBase::resolve).collect(Collectors.toList());
+  }
+
+  /** Writes the manifest next to the other outputs. Files that failed to parse are left out. */
+  public void writeManifest() throws IOException {
+    try (JsonOutput out = new JsonOutput(outputDir.resolve(MANIFEST_FILE))) {
+      out.raw("{\n  \"version\": " + MANIFEST_VERSION + ",\n  \"precision\": ")
+          .string(dependencyAnalyzer.getPrecision().toString())
+          .raw(",\n  \"jars\": [");
+      int jarCount = 0;
+      for (JarIndex jar : dependencyAnalyzer.getJarIndexes()) {
+        out.raw(jarCount++ == 0 ? "\n    " : ",\n    ")
+            .raw("{\"path\": ").string(jar.jarPath)
+            .raw(", \"sha256\": ").string(jar.sha256)
+            .raw("}");
+      }
+      out.raw(jarCount == 0 ? "]" : "\n  ]").raw(",\n  \"files\": {");
+      int count = 0;
+      for (Map.Entry<String, FileEntry> e : new TreeMap<>(manifest).entrySet()) {
+        FileEntry entry = e.getValue();
+        out.raw(count++ == 0 ? "\n    " : ",\n    ").string(e.getKey()).raw(": {");
+        out.raw("\"hash\": ").string(entry.hash);
+        out.raw(", \"size\": " + entry.size);
+        out.raw(", \"lastModified\": " + entry.lastModified);
+        out.raw(", \"dependencies\": ");
+        out.stringArray(entry.dependencyKeys);
+        out.raw(", \"code\": ");
+        out.stringArray(entry.codeKeys);
+        out.raw(", \"endpoints\": ");
+        out.stringArray(entry.endpointKeys);
+        out.raw("}");
+      }
+      out.raw("\n  }\n}\n");
+    }
+  }
+
+  /**
+   * Reads the dependency keys each source file produced from the manifest in {@code outputDir},
+   * keyed by path relative to the source root.
+   */
+  @SuppressWarnings("unchecked")
+  public static Map<String, List<String>> readManifestKeys(Path outputDir) throws IOException {
+    Map<String, Object> root =
+        (Map<String, Object>) JsonReader.read(outputDir.resolve(MANIFEST_FILE));
+    Map<String, List<String>> keys = new HashMap<>();
+    for (Map.Entry<String, Object> e : ((Map<String, Object>) root.get("files")).entrySet()) {
+      Map<String, Object> entry = (Map<String, Object>) e.getValue();
+      keys.put(e.getKey(), (List<String>) (List<?>) entry.get("dependencies"));
+    }
+    return keys;
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, FileEntry> loadPrevious() {
+    Path manifestFile = outputDir.resolve(MANIFEST_FILE);
+    Path dependencyFile = outputDir.resolve("dependencies.json");
+    Path codeFile = outputDir.resolve("code.json");
+    Path endpointFile = outputDir.resolve(APIEndpoint.FILE);
+    boolean sharded = ShardedOutput.exists(outputDir);
+    if (!Files.exists(manifestFile)
+        || (!sharded && (!Files.exists(dependencyFile) || !Files.exists(codeFile)))
+        || !Files.exists(endpointFile)) {
+      return Collections.emptyMap();
+    }
+
+    try {
+      Map<String, Object> root = (Map<String, Object>) JsonReader.read(manifestFile);
+      if (((Number) root.get("version")).intValue() != MANIFEST_VERSION) {
+        return Collections.emptyMap();
+      }
+      // Outputs of another precision tier differ in which edges are degraded
+      String previousPrecision = (String) root.getOrDefault("precision", Precision.FULL.toString());
+      if (!previousPrecision.equals(dependencyAnalyzer.getPrecision().toString())) {
+        System.out.println(
+            "IncrementalIndex: precision changed from " + previousPrecision + ", analysing all");
+        return Collections.emptyMap();
+      }
+      // Dependencies into a changed or upgraded JAR may resolve differently
+      List<String> previousJars = new ArrayList<>();
+      for (Object jar : (List<Object>) root.getOrDefault("jars", Collections.emptyList())) {
+        previousJars.add((String) ((Map<String, Object>) jar).get("sha256"));
+      }
+      List<String> jars =
+          dependencyAnalyzer.getJarIndexes().stream()
+              .map(jar -> jar.sha256)
+              .collect(Collectors.toList());
+      if (!previousJars.equals(jars)) {
+        System.out.println("IncrementalIndex: external JARs changed, analysing all");
+        return Collections.emptyMap();
+      }
+      Map<String, FileEntry> previous = new HashMap<>();
+      Map<String, Object> files = (Map<String, Object>) root.get("files");
+      for (Map.Entry<String, Object> e : files.entrySet()) {
+        Map<String, Object> entry = (Map<String, Object>) e.getValue();
+        previous.put(
+            e.getKey(),
+            new FileEntry(
+                (String) entry.get("hash"),
+                ((Number) entry.get("size")).longValue(),
+                ((Number) entry.get("lastModified")).longValue(),
+                (List<String>) (List<?>) entry.get("dependencies"),
+                (List<String>) (List<?>) entry.get("code"),
+                (List<String>) (List<?>) entry.get("endpoints")));
+      }
+
+      if (sharded) {
+        ShardedOutput.readAll(outputDir, dependencies::put, codeMap::put);
+      } else {
+        Map<String, Object> previousDependencies =
+            (Map<String, Object>) JsonReader.read(dependencyFile);
+        for (Map.Entry<String, Object> e : previousDependencies.entrySet()) {
+          dependencies.put(e.getKey(), (List<String>) (List<?>) e.getValue());
+        }
+        for (Map.Entry<String, Object> e :
+            ((Map<String, Object>) JsonReader.read(codeFile)).entrySet()) {
+          codeMap.put(e.getKey(), (String) e.getValue());
+        }
+      }
+      endpoints.addAll(APIEndpoint.readJson(endpointFile));
+      getDegradedEdges().readJson(outputDir.resolve(DegradedEdges.FILE));
+      getCallSites().readJson(outputDir.resolve(CallSites.FILE));
+      return previous;
+    } catch (Exception e) {
+      System.err.println("Ignoring previous run in " + outputDir + " - " + e.getMessage());
+      dependencies.clear();
+      codeMap.clear();
+      endpoints.clear();
+      getDegradedEdges().clear();
+      getCallSites().clear();
+      return Collections.emptyMap();
+    }
+  }
+
+  /** True if {@code javaFile} lies below one of the source roots of this index. */
+  public boolean contains(Path javaFile) {
+    Path file = javaFile.toAbsolutePath().normalize();
+    for (Path root : sourceRoots) {
+      if (file.startsWith(root.toAbsolutePath().normalize())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private String relativeKey(Path javaFile) {
+    Path file = keyBase.isAbsolute() ? javaFile.toAbsolutePath().normalize() : javaFile;
+    return keyBase.relativize(file).toString().replace('\\', '/');
+  }
+
+  /**
+   * Deepest directory containing every root. A single root is its own common parent, so manifests
+   * of single-root runs keep their keys.
+   */
+  static Path commonParent(List<Path> roots) {
+    if (roots.size() == 1) {
+      return roots.get(0);
+    }
+    Path common = roots.get(0).toAbsolutePath().normalize();
+    for (Path root : roots) {
+      while (!root.toAbsolutePath().normalize().startsWith(common)) {
+        common = common.getParent();
+      }
+    }
+    return common;
+  }
+
+  private static String hash(Path file) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    byte[] buffer = new byte[8192];
+    try (InputStream in = Files.newInputStream(file)) {
+      int n;
+      while ((n = in.read(buffer)) > 0) {
+        digest.update(buffer, 0, n);
+      }
+    }
+    StringBuilder sb = new StringBuilder();
+    for (byte b : digest.digest()) {
+      sb.append(String.format("%02x", b));
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,59 @@
+package com.example;
+
+import com.github.javaparser.resolution.TypeSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.resolution.model.SymbolReference;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
+import java.io.IOException;
+
+/**
+ * Type solver for an external JAR that answers "not here" from a {@link JarIndex} and only opens
+ * the JAR with a {@link JarTypeSolver} once one of its types is actually requested.
+ *
+ * <p>Indexes are read-only and may be shared; each solver instance still belongs to one worker.
+ */
+public class IndexedJarTypeSolver implements TypeSolver {
+  private final JarIndex index;
+  private TypeSolver parent;
+  private JarTypeSolver delegate;
+
+  public IndexedJarTypeSolver(JarIndex index) {
+    this.index = index;
+  }
+
+  @Override
+  public TypeSolver getParent() {
+    return parent;
+  }
+
+  @Override
+  public void setParent(TypeSolver parent) {
+    if (this.parent != null) {
+      throw new IllegalStateException("This TypeSolver already has a parent.");
+    }
+    this.parent = parent;
+  }
+
+  @Override
+  public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+    if (!index.contains(name)) {
+      return SymbolReference.unsolved();
+    }
+    return delegate().tryToSolveType(name);
+  }
+
+  private JarTypeSolver delegate() {
+    if (delegate == null) {
+      try {
+        delegate = new JarTypeSolver(index.jarPath);
+      } catch (IOException e) {
+        throw new IllegalStateException("Failed to open JAR " + index.jarPath, e);
+      }
+      // Declarations are built against the root solver, which is reached through the parent
+      if (parent != null) {
+        delegate.setParent(parent);
+      }
+    }
+    return delegate;
+  }
+}
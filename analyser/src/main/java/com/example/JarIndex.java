@@ -0,0 +1,224 @@
+package com.example;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Persistent, content-addressed index of the type names declared in an external JAR.
+ *
+ * <p>Index files are named after the SHA-256 of the JAR, so they are shared by every run and every
+ * project that uses the same JAR. They hold the type names sorted by their UTF-8 bytes and are
+ * memory-mapped on first lookup, so opening an index costs nothing until it is needed.
+ *
+ * <p>Layout: magic, version, count, then count + 1 int offsets into the name bytes that follow.
+ */
+public class JarIndex {
+  public static final Path DEFAULT_DIRECTORY =
+      Paths.get(System.getProperty("user.home"), ".cache", "java-project-analyser", "jar-index");
+
+  private static final int MAGIC = 0x4a494458; // "JIDX"
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 12;
+
+  public final String jarPath;
+  /** SHA-256 of the JAR's content, hex-encoded. */
+  public final String sha256;
+  private final Path indexFile;
+  private volatile ByteBuffer buffer;
+  private int count;
+
+  private JarIndex(String jarPath, String sha256, Path indexFile) {
+    this.jarPath = jarPath;
+    this.sha256 = sha256;
+    this.indexFile = indexFile;
+  }
+
+  /** Opens the index of {@code jarPath} in {@code indexDir}, building it on first use. */
+  public static JarIndex open(String jarPath, Path indexDir) throws IOException {
+    Path jar = Paths.get(jarPath);
+    if (!Files.isRegularFile(jar)) {
+      throw new IOException("Not a file: " + jarPath);
+    }
+    String sha256 = hash(jar);
+    Path indexFile = indexDir.resolve(sha256 + ".idx");
+    if (!Files.exists(indexFile)) {
+      write(indexFile, listTypeNames(jar));
+    } else if (!isComplete(indexFile)) {
+      // Left by a killed run or damaged on disk; lookups would fail on every call
+      System.err.println("JarIndex: rebuilding damaged index " + indexFile + " of " + jarPath);
+      write(indexFile, listTypeNames(jar));
+    }
+    return new JarIndex(jarPath, sha256, indexFile);
+  }
+
+  // Header, entry count and length agree: the offsets and the names they point past all fit
+  private static boolean isComplete(Path indexFile) throws IOException {
+    try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+      long size = channel.size();
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      if (size < HEADER_SIZE + 4 || channel.read(header, 0) < HEADER_SIZE) {
+        return false;
+      }
+      int count = header.getInt(8);
+      if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || count < 0) {
+        return false;
+      }
+      long dataStart = HEADER_SIZE + (count + 1L) * 4;
+      if (size < dataStart) {
+        return false;
+      }
+      ByteBuffer last = ByteBuffer.allocate(4);
+      if (channel.read(last, dataStart - 4) < 4) {
+        return false;
+      }
+      return size == dataStart + last.getInt(0);
+    }
+  }
+
+  /** True if the JAR declares a type with this canonical name, e.g. "a.b.Outer.Inner". */
+  public boolean contains(String typeName) {
+    ByteBuffer names = names();
+    byte[] key = typeName.getBytes(StandardCharsets.UTF_8);
+    int dataStart = HEADER_SIZE + (count + 1) * 4;
+    int low = 0;
+    int high = count - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int from = dataStart + names.getInt(HEADER_SIZE + mid * 4);
+      int to = dataStart + names.getInt(HEADER_SIZE + (mid + 1) * 4);
+      int cmp = compare(names, from, to, key);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public int size() {
+    names();
+    return count;
+  }
+
+  private ByteBuffer names() {
+    ByteBuffer mapped = buffer;
+    if (mapped == null) {
+      synchronized (this) {
+        mapped = buffer;
+        if (mapped == null) {
+          mapped = map();
+          count = mapped.getInt(8);
+          buffer = mapped;
+        }
+      }
+    }
+    return mapped;
+  }
+
+  private ByteBuffer map() {
+    try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+      ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+        throw new IOException("Unsupported JAR index " + indexFile);
+      }
+      return mapped;
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read JAR index for " + jarPath, e);
+    }
+  }
+
+  // Unsigned byte comparison, the same order the names were sorted in
+  private static int compare(ByteBuffer names, int from, int to, byte[] key) {
+    int length = to - from;
+    int n = Math.min(length, key.length);
+    for (int i = 0; i < n; i++) {
+      int cmp = (names.get(from + i) & 0xff) - (key[i] & 0xff);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return length - key.length;
+  }
+
+  // Same naming as JarTypeSolver: '/' and '$' both become '.'
+  private static List<byte[]> listTypeNames(Path jar) throws IOException {
+    List<byte[]> names = new ArrayList<>();
+    try (JarFile jarFile = new JarFile(jar.toFile())) {
+      Enumeration<JarEntry> entries = jarFile.entries();
+      while (entries.hasMoreElements()) {
+        String entry = entries.nextElement().getName();
+        if (!entry.endsWith(".class") || entry.startsWith("META-INF/")) {
+          continue;
+        }
+        String name = entry.substring(0, entry.length() - ".class".length());
+        names.add(name.replace('/', '.').replace('$', '.').getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    names.sort(Arrays::compareUnsigned);
+    return names;
+  }
+
+  // Written to a temporary file first so concurrent runs never see a partial index
+  private static void write(Path indexFile, List<byte[]> names) throws IOException {
+    Files.createDirectories(indexFile.getParent());
+    Path tmp = Files.createTempFile(indexFile.getParent(), "jar-index", ".tmp");
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(names.size());
+      int offset = 0;
+      out.writeInt(offset);
+      for (byte[] name : names) {
+        offset += name.length;
+        out.writeInt(offset);
+      }
+      for (byte[] name : names) {
+        out.write(name);
+      }
+    }
+    Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static String hash(Path file) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    byte[] chunk = new byte[1 << 16];
+    try (InputStream in = Files.newInputStream(file)) {
+      int n;
+      while ((n = in.read(chunk)) > 0) {
+        digest.update(chunk, 0, n);
+      }
+    }
+    StringBuilder sb = new StringBuilder();
+    for (byte b : digest.digest()) {
+      sb.append(String.format("%02x", b));
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,109 @@
+package com.example;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Buffered UTF-8 output for the JSON writers. Strings are escaped straight into the buffer, so no
+ * intermediate copy of a document or value is ever built.
+ */
+public class JsonOutput implements Closeable {
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final Writer out;
+
+  public JsonOutput(String filePath) throws IOException {
+    this(Paths.get(filePath));
+  }
+
+  public JsonOutput(Path file) throws IOException {
+    // Create parent directories if they don't exist
+    Path parentDir = file.toAbsolutePath().getParent();
+    if (parentDir != null) {
+      Files.createDirectories(parentDir);
+    }
+    this.out =
+        new BufferedWriter(
+            new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8),
+            BUFFER_SIZE);
+  }
+
+  /** Wraps an existing writer, e.g. standard output of a command-line tool. */
+  public JsonOutput(Writer writer) {
+    this.out = new BufferedWriter(writer, BUFFER_SIZE);
+  }
+
+  /** Writes a JSON array of strings. */
+  public JsonOutput stringArray(List<String> values) throws IOException {
+    out.write('[');
+    for (int i = 0; i < values.size(); i++) {
+      if (i > 0) {
+        out.write(", ");
+      }
+      string(values.get(i));
+    }
+    out.write(']');
+    return this;
+  }
+
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  /** Writes JSON syntax or other text that needs no escaping. */
+  public JsonOutput raw(String s) throws IOException {
+    out.write(s);
+    return this;
+  }
+
+  /** Writes {@code s} as a quoted JSON string; null is written as an empty string. */
+  public JsonOutput string(String s) throws IOException {
+    out.write('"');
+    if (s != null) {
+      escape(s);
+    }
+    out.write('"');
+    return this;
+  }
+
+  // Carriage returns are dropped, matching the historical output of the writers
+  private void escape(String s) throws IOException {
+    int start = 0;
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c >= 0x20 && c != '"' && c != '\\') {
+        continue;
+      }
+      out.write(s, start, i - start);
+      start = i + 1;
+      switch (c) {
+        case '"': out.write("\\\""); break;
+        case '\\': out.write("\\\\"); break;
+        case '\n': out.write("\\n"); break;
+        case '\t': out.write("\\t"); break;
+        case '\r': break;
+        case '\b': out.write("\\b"); break;
+        case '\f': out.write("\\f"); break;
+        default:
+          out.write("\\u00");
+          out.write(HEX[c >> 4]);
+          out.write(HEX[c & 0xf]);
+      }
+    }
+    out.write(s, start, s.length() - start);
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+}
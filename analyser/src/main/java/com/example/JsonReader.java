@@ -0,0 +1,188 @@
+package com.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON reader for the files this analyser writes itself.
+ *
+ * <p>Objects become {@link LinkedHashMap}s, arrays become {@link ArrayList}s, numbers become
+ * {@link Long} or {@link Double}.
+ */
+public class JsonReader {
+  private final Reader in;
+  private int peeked = -2;
+
+  private JsonReader(Reader in) {
+    this.in = in;
+  }
+
+  public static Object read(Path file) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      return new JsonReader(reader).readDocument();
+    }
+  }
+
+  public static Object read(Reader reader) throws IOException {
+    return new JsonReader(reader).readDocument();
+  }
+
+  private Object readDocument() throws IOException {
+    Object value = readValue();
+    if (skipWhitespace() != -1) {
+      throw new IOException("Unexpected trailing content in JSON document");
+    }
+    return value;
+  }
+
+  private Object readValue() throws IOException {
+    int c = skipWhitespace();
+    switch (c) {
+      case '{':
+        return readObject();
+      case '[':
+        return readArray();
+      case '"':
+        next();
+        return readString();
+      case 't':
+        expectWord("true");
+        return Boolean.TRUE;
+      case 'f':
+        expectWord("false");
+        return Boolean.FALSE;
+      case 'n':
+        expectWord("null");
+        return null;
+      case -1:
+        throw new IOException("Unexpected end of JSON document");
+      default:
+        return readNumber();
+    }
+  }
+
+  private Map<String, Object> readObject() throws IOException {
+    next();
+    Map<String, Object> object = new LinkedHashMap<>();
+    if (skipWhitespace() == '}') {
+      next();
+      return object;
+    }
+    while (true) {
+      if (skipWhitespace() != '"') {
+        throw new IOException("Expected object key in JSON document");
+      }
+      next();
+      String key = readString();
+      if (skipWhitespace() != ':') {
+        throw new IOException("Expected ':' after key " + key);
+      }
+      next();
+      object.put(key, readValue());
+      int c = skipWhitespace();
+      next();
+      if (c == '}') return object;
+      if (c != ',') throw new IOException("Expected ',' or '}' in JSON object");
+    }
+  }
+
+  private List<Object> readArray() throws IOException {
+    next();
+    List<Object> array = new ArrayList<>();
+    if (skipWhitespace() == ']') {
+      next();
+      return array;
+    }
+    while (true) {
+      array.add(readValue());
+      int c = skipWhitespace();
+      next();
+      if (c == ']') return array;
+      if (c != ',') throw new IOException("Expected ',' or ']' in JSON array");
+    }
+  }
+
+  private String readString() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    while (true) {
+      int c = next();
+      if (c == -1) throw new IOException("Unterminated string in JSON document");
+      if (c == '"') return sb.toString();
+      if (c != '\\') {
+        sb.append((char) c);
+        continue;
+      }
+      int escaped = next();
+      switch (escaped) {
+        case 'n': sb.append('\n'); break;
+        case 't': sb.append('\t'); break;
+        case 'r': sb.append('\r'); break;
+        case 'b': sb.append('\b'); break;
+        case 'f': sb.append('\f'); break;
+        case 'u':
+          int code = 0;
+          for (int i = 0; i < 4; i++) {
+            code = code * 16 + Character.digit(next(), 16);
+          }
+          sb.append((char) code);
+          break;
+        default: sb.append((char) escaped);
+      }
+    }
+  }
+
+  private Object readNumber() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    int c = peek();
+    while (c != -1 && "+-0123456789.eE".indexOf(c) >= 0) {
+      sb.append((char) next());
+      c = peek();
+    }
+    String number = sb.toString();
+    if (number.isEmpty()) {
+      throw new IOException("Unexpected character '" + (char) c + "' in JSON document");
+    }
+    if (number.contains(".") || number.contains("e") || number.contains("E")) {
+      return Double.parseDouble(number);
+    }
+    return Long.parseLong(number);
+  }
+
+  private void expectWord(String word) throws IOException {
+    for (int i = 0; i < word.length(); i++) {
+      if (next() != word.charAt(i)) {
+        throw new IOException("Expected '" + word + "' in JSON document");
+      }
+    }
+  }
+
+  private int skipWhitespace() throws IOException {
+    int c = peek();
+    while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+      next();
+      c = peek();
+    }
+    return c;
+  }
+
+  private int peek() throws IOException {
+    if (peeked == -2) {
+      peeked = in.read();
+    }
+    return peeked;
+  }
+
+  private int next() throws IOException {
+    int c = peek();
+    peeked = -2;
+    return c;
+  }
+}
@@ -0,0 +1,202 @@
+package com.example;
+
+import com.github.javaparser.Position;
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.EnumConstantDeclaration;
+import com.github.javaparser.ast.body.EnumDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.RecordDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.PatternExpr;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.type.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Declared types of the names visible in a method: its parameters, local, lambda and catch
+ * variables and the fields of the enclosing classes. Built once per method from the AST, so scopes
+ * like {@code owner.getName()} can be typed without asking the symbol solver.
+ *
+ * <p>Lookups are positional: an inner declaration shadows outer ones and a local variable is only
+ * visible after its declaration. Nothing is guessed. Names with an implicit type ({@code var},
+ * untyped lambda parameters, pattern variables) are found without a type, and a class that has
+ * supertypes or is local or anonymous answers every name it does not declare the same way, since
+ * the name may be inherited or captured.
+ */
+class LocalSymbolTable {
+
+  /** A declared name; {@link #type} is null when the type is implicit or cannot be known here. */
+  static class Declaration {
+    final String name;
+    final Type type;
+    final Range scope;
+    final Position visibleFrom;
+
+    Declaration(String name, Type type, Range scope, Position visibleFrom) {
+      this.name = name;
+      this.type = type;
+      this.scope = scope;
+      this.visibleFrom = visibleFrom;
+    }
+  }
+
+  private static final Declaration UNKNOWN = new Declaration("", null, null, null);
+
+  private final Map<String, List<Declaration>> declarations = new HashMap<>();
+  private final LocalSymbolTable parent;
+  // Names not declared here may be inherited or captured; lookups must not go further out
+  private final boolean opaque;
+
+  private LocalSymbolTable(LocalSymbolTable parent, boolean opaque) {
+    this.parent = parent;
+    this.opaque = opaque;
+  }
+
+  /**
+   * Fields and enum constants of a type declaration or anonymous class body.
+   *
+   * @param enclosing table of the enclosing type, or null for top-level types
+   */
+  static LocalSymbolTable forType(Node type, LocalSymbolTable enclosing) {
+    LocalSymbolTable table = new LocalSymbolTable(enclosing, isOpaque(type));
+    for (Node member : type.getChildNodes()) {
+      if (member instanceof FieldDeclaration) {
+        for (VariableDeclarator variable : ((FieldDeclaration) member).getVariables()) {
+          table.addDeclaration(variable.getNameAsString(), variable.getType(), type);
+        }
+      } else if (member instanceof EnumConstantDeclaration) {
+        table.addDeclaration(((EnumConstantDeclaration) member).getNameAsString(), null, type);
+      }
+    }
+    if (type instanceof RecordDeclaration) {
+      for (Parameter component : ((RecordDeclaration) type).getParameters()) {
+        table.addDeclaration(component.getNameAsString(), component.getType(), type);
+      }
+    }
+    return table;
+  }
+
+  /** Variables declared inside {@code method}, backed by the table of its class. */
+  static LocalSymbolTable forMethod(Node method, LocalSymbolTable type) {
+    LocalSymbolTable table = new LocalSymbolTable(type, false);
+    for (Parameter parameter : method.findAll(Parameter.class)) {
+      // Method, constructor, lambda or catch parameter; a varargs parameter is an array
+      table.addDeclaration(
+          parameter.getNameAsString(),
+          parameter.isVarArgs() ? null : parameter.getType(),
+          parameter.getParentNode().orElse(method));
+    }
+    for (VariableDeclarationExpr expr : method.findAll(VariableDeclarationExpr.class)) {
+      // Visible from the declarator to the end of the enclosing block, loop or try statement
+      Node statement = expr.getParentNode().orElse(method);
+      Node scope = statement instanceof ExpressionStmt
+          ? statement.getParentNode().orElse(method)
+          : statement;
+      for (VariableDeclarator variable : expr.getVariables()) {
+        table.add(
+            variable.getNameAsString(),
+            variable.getType(),
+            scope.getRange().orElse(null),
+            variable.getBegin().orElse(null));
+      }
+    }
+    for (PatternExpr pattern : method.findAll(PatternExpr.class)) {
+      // Flow scoping is not modelled; the name is known to exist, its type is not trusted
+      table.addDeclaration(pattern.getNameAsString(), null, method);
+    }
+    return table;
+  }
+
+  /**
+   * The declaration of {@code name} visible at {@code use}, or null if nothing declares it. The
+   * type of the result is null when it is implicit or cannot be known from here.
+   */
+  Declaration find(String name, Node use) {
+    Position at = use.getBegin().orElse(null);
+    if (at == null) {
+      return UNKNOWN;
+    }
+    for (LocalSymbolTable table = this; table != null; table = table.parent) {
+      Declaration found = null;
+      for (Declaration declaration : table.declarations.getOrDefault(name, List.of())) {
+        if (declaration.scope.contains(at)
+            && declaration.visibleFrom.isBeforeOrEqual(at)
+            && (found == null || found.scope.contains(declaration.scope))) {
+          found = declaration;
+        }
+      }
+      if (found != null) {
+        return found;
+      }
+      if (table.opaque) {
+        return UNKNOWN;
+      }
+    }
+    return null;
+  }
+
+  /** Like {@link #find}, for {@code this.name}: only fields of the class itself are considered. */
+  Declaration findField(String name) {
+    LocalSymbolTable type = parent;
+    if (type == null) {
+      return UNKNOWN;
+    }
+    List<Declaration> fields = type.declarations.getOrDefault(name, List.of());
+    if (fields.size() == 1) {
+      return fields.get(0);
+    }
+    return fields.isEmpty() && !type.opaque ? null : UNKNOWN;
+  }
+
+  private static boolean isOpaque(Node type) {
+    if (!(type instanceof TypeDeclaration)) {
+      // Anonymous class body
+      return true;
+    }
+    if (type instanceof ClassOrInterfaceDeclaration) {
+      ClassOrInterfaceDeclaration declaration = (ClassOrInterfaceDeclaration) type;
+      if (declaration.isLocalClassDeclaration()
+          || !declaration.getExtendedTypes().isEmpty()
+          || !declaration.getImplementedTypes().isEmpty()) {
+        return true;
+      }
+    } else if (type instanceof EnumDeclaration) {
+      if (!((EnumDeclaration) type).getImplementedTypes().isEmpty()) {
+        return true;
+      }
+    } else if (type instanceof RecordDeclaration) {
+      if (!((RecordDeclaration) type).getImplementedTypes().isEmpty()) {
+        return true;
+      }
+    }
+    // Nested in a local or anonymous class
+    return Ancestors.nearest(type, BodyDeclaration.class)
+            .map(ancestor -> !(ancestor instanceof TypeDeclaration))
+            .orElse(false)
+        || Ancestors.nearest(type, ObjectCreationExpr.class).isPresent();
+  }
+
+  private void addDeclaration(String name, Type type, Node scope) {
+    scope.getRange().ifPresent(range -> add(name, type, range, range.begin));
+  }
+
+  private void add(String name, Type type, Range scope, Position visibleFrom) {
+    if (scope == null || visibleFrom == null) {
+      return;
+    }
+    Type declared = type == null || type.isVarType() || type.isUnknownType() ? null : type;
+    declarations
+        .computeIfAbsent(name, n -> new ArrayList<>(1))
+        .add(new Declaration(name, declared, scope, visibleFrom));
+  }
+}
@@ -0,0 +1,51 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Finds the modules of a Maven reactor: every directory below the reactor root with a pom.xml and
+ * a src/main/java directory. Build output and hidden directories are not searched.
+ */
+public class MavenModules {
+  private static final String SOURCE_DIRECTORY = "src/main/java";
+
+  private MavenModules() {}
+
+  /**
+   * Source roots of the modules below {@code reactorRoot}, keyed by module path relative to it,
+   * in name order. The reactor root itself is keyed by its directory name.
+   */
+  public static Map<String, Path> sourceRoots(Path reactorRoot) throws IOException {
+    Path root = reactorRoot.toAbsolutePath().normalize();
+    Map<String, Path> modules = new TreeMap<>();
+    Files.walkFileTree(
+        root,
+        new SimpleFileVisitor<Path>() {
+          @Override
+          public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            String name = dir.getFileName() == null ? "" : dir.getFileName().toString();
+            if (!dir.equals(root)
+                && (name.startsWith(".") || name.equals("target") || name.equals("src"))) {
+              return FileVisitResult.SKIP_SUBTREE;
+            }
+            Path sources = dir.resolve(SOURCE_DIRECTORY);
+            if (Files.isRegularFile(dir.resolve("pom.xml")) && Files.isDirectory(sources)) {
+              String module =
+                  dir.equals(root)
+                      ? String.valueOf(root.getFileName())
+                      : root.relativize(dir).toString().replace('\\', '/');
+              modules.put(module, sources);
+            }
+            return FileVisitResult.CONTINUE;
+          }
+        });
+    return modules;
+  }
+}
@@ -1,60 +1,47 @@
 package com.example;
 
-import java.io.File;
-import java.io.FileWriter;
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.Map;
 
-public class MethodCodeWriter {
+/**
+ * Streams a mapping from "method metadata" string keys to code string values as JSON. Entries are
+ * written as they arrive, so memory use does not grow with the size of the index.
+ *
+ * Output Example:
+ * {
+ *   "package.class.method(params, ...)": "public void foo() {...}",
+ *   ...
+ * }
+ */
+public class MethodCodeWriter implements Closeable {
+  private final JsonOutput out;
+  private int count = 0;
 
-  /**
-   * Writes a mapping from "method metadata" string keys to code string values as JSON.
-   *
-   * Output Example:
-   * {
-   *   "package.class.method(params, ...)": "public void foo() {...}",
-   *   ...
-   * }
-   */
-  public static void writeAsJson(Map<String, String> codeMap, String filePath) throws IOException {
-    StringBuilder sb = new StringBuilder();
-    sb.append("{\n");
-    int count = 0;
-    for (Map.Entry<String, String> entry : codeMap.entrySet()) {
-      String key = entry.getKey();
-      String value = entry.getValue();
-      sb.append("  \"")
-        .append(escapeJson(key))
-        .append("\": \"")
-        .append(escapeJson(value))
-        .append("\"");
-      count++;
-      if (count < codeMap.size()) {
-        sb.append(",");
-      }
-      sb.append("\n");
-    }
-    sb.append("}\n");
+  public MethodCodeWriter(String filePath) throws IOException {
+    out = new JsonOutput(filePath);
+    out.raw("{\n");
+  }
 
-    // Create parent directories if they don't exist
-    File file = new File(filePath);
-    File parentDir = file.getParentFile();
-    if (parentDir != null && !parentDir.exists()) {
-      parentDir.mkdirs();
-    }
+  public void write(String key, String code) throws IOException {
+    out.raw(count++ == 0 ? "  " : ",\n  ").string(key).raw(": ").string(code);
+  }
 
-    try (FileWriter writer = new FileWriter(file)) {
-      writer.write(sb.toString());
+  @Override
+  public void close() throws IOException {
+    try {
+      out.raw(count > 0 ? "\n}\n" : "}\n");
+    } finally {
+      out.close();
     }
   }
 
-  // Helper to escape JSON strings
-  private static String escapeJson(String s) {
-    if (s == null) return "";
-    return s.replace("\\", "\\\\")
-            .replace("\"", "\\\"")
-            .replace("\n", "\\n")
-            .replace("\r", "")
-            .replace("\t", "\\t");
+  /** Writes a complete code map as JSON. */
+  public static void writeAsJson(Map<String, String> codeMap, String filePath) throws IOException {
+    try (MethodCodeWriter writer = new MethodCodeWriter(filePath)) {
+      for (Map.Entry<String, String> entry : codeMap.entrySet()) {
+        writer.write(entry.getKey(), entry.getValue());
+      }
+    }
   }
 }
@@ -1,53 +1,109 @@
 package com.example;
 
-import java.io.File;
-import java.io.FileWriter;
+import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 
-public class MethodDependencyWriter {
+/**
+ * Streams method dependencies to a JSON file, one entry at a time.
+ *
+ * <p>Output structure: { "methodName1": [ "package.class.method(params, ...)", ... ], ... }
+ */
+public class MethodDependencyWriter implements Closeable {
+  private final JsonOutput out;
+  private int methodsCount = 0;
 
-  /**
-   * Writes the method dependencies to a JSON file.
-   *
-   * <p>Output structure: { "methodName1": [ "package.class.method(params, ...)", ... ], ... }
-   */
-  public static void writeAsJson(Map<String, List<MethodMetadata>> dependencyMap, String filePath)
-      throws IOException {
-    StringBuilder sb = new StringBuilder();
-    sb.append("{\n");
-    int methodsCount = 0;
-    for (Map.Entry<String, List<MethodMetadata>> entry : dependencyMap.entrySet()) {
-      String methodName = entry.getKey();
-      List<MethodMetadata> deps = entry.getValue();
+  public MethodDependencyWriter(String filePath) throws IOException {
+    out = new JsonOutput(filePath);
+    out.raw("{\n");
+  }
 
-      sb.append("  \"").append(escapeJson(methodName)).append("\": [");
+  public void write(String methodName, List<MethodMetadata> deps) throws IOException {
+    out.raw(methodsCount++ == 0 ? "  " : ",\n  ").string(methodName).raw(": [");
+    for (int i = 0; i < deps.size(); i++) {
+      if (i > 0) {
+        out.raw(", ");
+      }
+      out.string(deps.get(i).toString());
+    }
+    out.raw("]");
+  }
 
-      for (int i = 0; i < deps.size(); i++) {
-        sb.append("\"").append(escapeJson(deps.get(i).toString())).append("\"");
-        if (i < deps.size() - 1) {
-          sb.append(", ");
-        }
+  /** Writes a row whose callees are already signatures. */
+  public void writeSignatures(String methodName, List<String> callees) throws IOException {
+    out.raw(methodsCount++ == 0 ? "  " : ",\n  ").string(methodName).raw(": ").stringArray(callees);
+  }
+
+  /** Writes the row of {@code method} straight from the graph's interned signatures. */
+  public void write(CallGraph graph, int method) throws IOException {
+    out.raw(methodsCount++ == 0 ? "  " : ",\n  ").string(graph.signature(method)).raw(": [");
+    for (int i = 0; i < graph.calleeCount(method); i++) {
+      if (i > 0) {
+        out.raw(", ");
       }
-      sb.append("]");
-      methodsCount++;
-      if (methodsCount < dependencyMap.size()) {
-        sb.append(",");
+      out.string(graph.signature(graph.callee(method, i)));
+    }
+    out.raw("]");
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      out.raw(methodsCount > 0 ? "\n}\n" : "}\n");
+    } finally {
+      out.close();
+    }
+  }
+
+  /** Writes a complete dependency map to a JSON file. */
+  public static void writeAsJson(Map<String, List<MethodMetadata>> dependencyMap, String filePath)
+      throws IOException {
+    try (MethodDependencyWriter writer = new MethodDependencyWriter(filePath)) {
+      for (Map.Entry<String, List<MethodMetadata>> entry : dependencyMap.entrySet()) {
+        writer.write(entry.getKey(), entry.getValue());
       }
-      sb.append("\n");
     }
-    sb.append("}\n");
+  }
 
-    // Create parent directories if they don't exist
-    File file = new File(filePath);
-    File parentDir = file.getParentFile();
-    if (parentDir != null && !parentDir.exists()) {
-      parentDir.mkdirs();
+  /** Writes every analysed method of a call graph to a JSON file. */
+  public static void writeAsJson(CallGraph graph, String filePath) throws IOException {
+    try (MethodDependencyWriter writer = new MethodDependencyWriter(filePath)) {
+      for (int id = graph.nextCaller(0); id >= 0; id = graph.nextCaller(id + 1)) {
+        writer.write(graph, id);
+      }
     }
+  }
 
-    try (FileWriter writer = new FileWriter(file)) {
-      writer.write(sb.toString());
+  /**
+   * Writes the reverse index of a call graph: every called method mapped to the distinct analysed
+   * methods that call it.
+   *
+   * <p>Output structure: { "package.class.callee(params)": [ "package.class.caller(params)", ... ] }
+   */
+  public static void writeCallersAsJson(CallGraph graph, String filePath) throws IOException {
+    try (JsonOutput out = new JsonOutput(filePath)) {
+      out.raw("{\n");
+      int count = 0;
+      for (int id = 0; id < graph.size(); id++) {
+        int callers = graph.callerCountOf(id);
+        if (callers == 0) {
+          continue;
+        }
+        out.raw(count++ == 0 ? "  " : ",\n  ").string(graph.signature(id)).raw(": [");
+        for (int i = 0; i < callers; i++) {
+          if (i > 0) {
+            out.raw(", ");
+          }
+          out.string(graph.signature(graph.callerOf(id, i)));
+        }
+        out.raw("]");
+      }
+      out.raw(count > 0 ? "\n}\n" : "}\n");
     }
   }
 
@@ -58,24 +114,18 @@ public class MethodDependencyWriter {
    */
   public static void writeAsYaml(Map<String, List<MethodMetadata>> dependencyMap, String filePath)
       throws IOException {
-    StringBuilder sb = new StringBuilder();
-    for (Map.Entry<String, List<MethodMetadata>> entry : dependencyMap.entrySet()) {
-      String methodName = entry.getKey();
-      List<MethodMetadata> deps = entry.getValue();
-
-      sb.append(escapeYamlKey(methodName)).append(":\n");
-      for (MethodMetadata dep : deps) {
-        sb.append("  - ").append(escapeYamlValue(dep.toString())).append("\n");
+    try (BufferedWriter writer =
+        Files.newBufferedWriter(Paths.get(filePath), StandardCharsets.UTF_8)) {
+      for (Map.Entry<String, List<MethodMetadata>> entry : dependencyMap.entrySet()) {
+        writer.write(escapeYamlKey(entry.getKey()));
+        writer.write(":\n");
+        for (MethodMetadata dep : entry.getValue()) {
+          writer.write("  - ");
+          writer.write(escapeYamlValue(dep.toString()));
+          writer.write("\n");
+        }
       }
     }
-    try (FileWriter writer = new FileWriter(filePath)) {
-      writer.write(sb.toString());
-    }
-  }
-
-  // Helper to escape strings for JSON output (rudimentary)
-  private static String escapeJson(String s) {
-    return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "");
   }
 
   // Helper to escape YAML keys (adds quotes if necessary)
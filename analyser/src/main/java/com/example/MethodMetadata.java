@@ -1,6 +1,8 @@
 // Data class to store method dependency information
 package com.example;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class MethodMetadata {
@@ -23,7 +25,57 @@ public class MethodMetadata {
 
   @Override
   public String toString() {
+    return signature(packageName, className, methodName, parameterTypes);
+  }
+
+  /** The key format used by every index: "package.class.method(param, ...)". */
+  public static String signature(
+      String packageName, String className, String methodName, List<String> parameterTypes) {
     String params = String.join(", ", parameterTypes);
     return packageName + "." + className + "." + methodName + "(" + params + ")";
   }
+
+  /**
+   * Parses a key produced by {@link #toString()}, e.g. "pkg.Class.method(java.lang.String, int)".
+   * Nested class names cannot be told apart from packages, but the result has the same string form.
+   */
+  public static MethodMetadata parse(String signature) {
+    int open = signature.indexOf('(');
+    int close = signature.lastIndexOf(')');
+    if (open < 0 || close < open) {
+      throw new IllegalArgumentException("Not a method signature: " + signature);
+    }
+    String qualifiedMethod = signature.substring(0, open);
+    int methodDot = qualifiedMethod.lastIndexOf('.');
+    String owner = methodDot >= 0 ? qualifiedMethod.substring(0, methodDot) : "";
+    String methodName = qualifiedMethod.substring(methodDot + 1);
+    int classDot = owner.lastIndexOf('.');
+    String packageName = classDot >= 0 ? owner.substring(0, classDot) : "";
+    String className = owner.substring(classDot + 1);
+    return new MethodMetadata(
+        packageName, className, methodName, splitParameters(signature.substring(open + 1, close)));
+  }
+
+  // Splits on top-level commas only, so "Map<K, V>, int" yields two parameters
+  private static List<String> splitParameters(String params) {
+    if (params.isBlank()) {
+      return Collections.emptyList();
+    }
+    List<String> result = new ArrayList<>();
+    int depth = 0;
+    int start = 0;
+    for (int i = 0; i < params.length(); i++) {
+      char c = params.charAt(i);
+      if (c == '<') {
+        depth++;
+      } else if (c == '>') {
+        depth--;
+      } else if (c == ',' && depth == 0) {
+        result.add(params.substring(start, i).trim());
+        start = i + 1;
+      }
+    }
+    result.add(params.substring(start).trim());
+    return result;
+  }
 }
@@ -0,0 +1,308 @@
+package com.example;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.Timespan;
+
+/**
+ * Process-wide instrumentation of an analysis run: wall and CPU time per phase, resolution
+ * counters, per-file and per-call latency histograms and the slowest files. {@link #writeJson}
+ * reports everything; while a JFR recording runs, phases, files and slow calls are also emitted as
+ * events.
+ *
+ * <p>All methods are thread-safe. With several pipeline threads, phase times are summed over the
+ * threads and can exceed the elapsed time.
+ */
+public class Metrics {
+  public static final String WALK = "walk";
+  public static final String PARSE = "parse";
+  public static final String RESOLVE = "resolve";
+  public static final String EXTRACT = "extract";
+  public static final String WRITE = "write";
+
+  public static final String FILES = "files";
+  public static final String PARSE_ERRORS = "parseErrors";
+  public static final String ANALYSIS_ERRORS = "analysisErrors";
+  public static final String CALLS = "calls";
+  public static final String CACHE_HITS = "resolutionCacheHits";
+  public static final String SYMBOL_TABLE_HITS = "symbolTableHits";
+  public static final String RESOLVED = "resolved";
+  public static final String AST_FALLBACKS = "astFallbacks";
+  public static final String UNRESOLVED = "unresolved";
+  public static final String METHODS = "methods";
+  public static final String ENDPOINTS = "endpoints";
+  /** Edges named without the solver because of the precision tier; also counted per reason. */
+  public static final String DEGRADED = "degradedEdges";
+  /** Sorted run files written by {@link ExternalSorter} when results exceed the memory limit. */
+  public static final String SPILLED_RUNS = "spilledRuns";
+  /** Source files the pipeline took from the solver's compilation-unit cache instead of parsing. */
+  public static final String REUSED_UNITS = "reusedUnits";
+  /** Source files a pipeline filter skipped without parsing them. */
+  public static final String FILTERED_FILES = "filteredFiles";
+
+  private static final int SLOWEST_FILES = 20;
+  private static final int UNRESOLVED_SAMPLES = 100;
+  // Call resolutions slower than this are emitted as JFR events
+  private static final long SLOW_CALL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final Metrics INSTANCE = new Metrics();
+
+  private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+  private final boolean cpuTime = threads.isCurrentThreadCpuTimeSupported();
+  private final Map<String, Phase> phases = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+  private final Histogram fileLatency = new Histogram();
+  private final Histogram callLatency = new Histogram();
+  // Min-heap on time, so the fastest of the slowest files is dropped first
+  private final PriorityQueue<FileTime> slowestFiles =
+      new PriorityQueue<>(Comparator.comparingLong(f -> f.nanos));
+  private final List<String> unresolvedSamples = new ArrayList<>();
+  private final long started = System.nanoTime();
+  private Recording recording;
+
+  private static class Phase {
+    final LongAdder wallNanos = new LongAdder();
+    final LongAdder cpuNanos = new LongAdder();
+    final LongAdder count = new LongAdder();
+  }
+
+  private static class FileTime {
+    final String file;
+    final long nanos;
+
+    FileTime(String file, long nanos) {
+      this.file = file;
+      this.nanos = nanos;
+    }
+  }
+
+  @Name("com.example.Phase")
+  @Label("Analysis Phase")
+  @Category("Java Project Analyser")
+  static class PhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+  }
+
+  @Name("com.example.File")
+  @Label("File Analysis")
+  @Category("Java Project Analyser")
+  static class FileEvent extends Event {
+    @Label("File")
+    String file;
+
+    @Label("Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long time;
+  }
+
+  @Name("com.example.SlowCall")
+  @Label("Slow Call Resolution")
+  @Category("Java Project Analyser")
+  static class SlowCallEvent extends Event {
+    @Label("Call")
+    String call;
+
+    @Label("Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long time;
+  }
+
+  /** Times one piece of work in a phase; closing it adds the wall and CPU time spent. */
+  public final class Timer implements AutoCloseable {
+    private final String phase;
+    private final long wallStart;
+    private final long cpuStart;
+    private final PhaseEvent event = new PhaseEvent();
+
+    private Timer(String phase) {
+      this.phase = phase;
+      this.cpuStart = cpuTime ? threads.getCurrentThreadCpuTime() : 0;
+      this.wallStart = System.nanoTime();
+      event.begin();
+    }
+
+    @Override
+    public void close() {
+      long wall = System.nanoTime() - wallStart;
+      Phase totals = phases.computeIfAbsent(phase, p -> new Phase());
+      totals.wallNanos.add(wall);
+      if (cpuTime) {
+        totals.cpuNanos.add(threads.getCurrentThreadCpuTime() - cpuStart);
+      }
+      totals.count.increment();
+      if (event.shouldCommit()) {
+        event.phase = phase;
+        event.commit();
+      }
+    }
+  }
+
+  public static Metrics get() {
+    return INSTANCE;
+  }
+
+  public Timer time(String phase) {
+    return new Timer(phase);
+  }
+
+  public void increment(String counter) {
+    add(counter, 1);
+  }
+
+  public void add(String counter, long amount) {
+    counters.computeIfAbsent(counter, c -> new LongAdder()).add(amount);
+  }
+
+  public long count(String counter) {
+    LongAdder adder = counters.get(counter);
+    return adder == null ? 0 : adder.sum();
+  }
+
+  /** Records the total time spent on one source file, parsing included. */
+  public void recordFile(Path file, long nanos) {
+    increment(FILES);
+    fileLatency.record(nanos);
+    synchronized (slowestFiles) {
+      if (slowestFiles.size() < SLOWEST_FILES || slowestFiles.peek().nanos < nanos) {
+        slowestFiles.add(new FileTime(file.toString(), nanos));
+        if (slowestFiles.size() > SLOWEST_FILES) {
+          slowestFiles.poll();
+        }
+      }
+    }
+    FileEvent event = new FileEvent();
+    if (event.shouldCommit()) {
+      event.file = file.toString();
+      event.time = nanos;
+      event.commit();
+    }
+  }
+
+  /** Records the time spent resolving one method call. */
+  public void recordCall(String call, long nanos) {
+    increment(CALLS);
+    callLatency.record(nanos);
+    if (nanos >= SLOW_CALL_NANOS) {
+      SlowCallEvent event = new SlowCallEvent();
+      if (event.shouldCommit()) {
+        event.call = call;
+        event.time = nanos;
+        event.commit();
+      }
+    }
+  }
+
+  /** Counts a call that ended up unresolved and keeps the first few descriptions as samples. */
+  public void unresolved(String description) {
+    increment(UNRESOLVED);
+    synchronized (unresolvedSamples) {
+      if (unresolvedSamples.size() < UNRESOLVED_SAMPLES) {
+        unresolvedSamples.add(description);
+      }
+    }
+  }
+
+  /** Starts recording the events of this class with JFR; {@link #stopRecording} writes them. */
+  public synchronized void startRecording(Path file) throws IOException {
+    recording = new Recording();
+    recording.enable(PhaseEvent.class).withoutStackTrace();
+    recording.enable(FileEvent.class).withoutStackTrace();
+    recording.enable(SlowCallEvent.class).withoutStackTrace();
+    recording.enable("jdk.GarbageCollection");
+    recording.enable("jdk.CPULoad").withPeriod(Duration.ofSeconds(1));
+    recording.setDestination(file);
+    recording.start();
+  }
+
+  public synchronized void stopRecording() throws IOException {
+    if (recording != null) {
+      recording.stop();
+      recording.close();
+      recording = null;
+    }
+  }
+
+  public void writeJson(Path file) throws IOException {
+    try (JsonOutput out = new JsonOutput(file)) {
+      writeJson(out);
+      out.raw("\n");
+    }
+  }
+
+  public void writeJson(JsonOutput out) throws IOException {
+    out.raw("{\n  \"elapsedMillis\": " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+    out.raw(",\n  \"phases\": {");
+    int count = 0;
+    for (Map.Entry<String, Phase> e : new TreeMap<>(phases).entrySet()) {
+      Phase phase = e.getValue();
+      out.raw(count++ == 0 ? "\n    " : ",\n    ").string(e.getKey())
+          .raw(": {\"wallMillis\": " + TimeUnit.NANOSECONDS.toMillis(phase.wallNanos.sum()))
+          .raw(", \"cpuMillis\": " + TimeUnit.NANOSECONDS.toMillis(phase.cpuNanos.sum()))
+          .raw(", \"count\": " + phase.count.sum() + "}");
+    }
+    out.raw("\n  },\n  \"counters\": {");
+    count = 0;
+    for (Map.Entry<String, LongAdder> e : new TreeMap<>(counters).entrySet()) {
+      out.raw(count++ == 0 ? "\n    " : ",\n    ").string(e.getKey())
+          .raw(": " + e.getValue().sum());
+    }
+
+    out.raw("\n  },\n  \"fileLatency\": ");
+    fileLatency.writeJson(out);
+    out.raw(",\n  \"callLatency\": ");
+    callLatency.writeJson(out);
+
+    List<FileTime> slowest;
+    synchronized (slowestFiles) {
+      slowest = new ArrayList<>(slowestFiles);
+    }
+    slowest.sort(Comparator.comparingLong((FileTime f) -> f.nanos).reversed());
+    out.raw(",\n  \"slowestFiles\": [");
+    count = 0;
+    for (FileTime f : slowest) {
+      out.raw(count++ == 0 ? "\n    " : ",\n    ")
+          .raw("{\"file\": ").string(f.file)
+          .raw(", \"millis\": " + TimeUnit.NANOSECONDS.toMillis(f.nanos) + "}");
+    }
+
+    List<String> samples;
+    synchronized (unresolvedSamples) {
+      samples = new ArrayList<>(unresolvedSamples);
+    }
+    out.raw("\n  ],\n  \"unresolvedSamples\": ").stringArray(samples).raw("\n}");
+  }
+
+  /** One-line summary of the counters for the console. */
+  @Override
+  public String toString() {
+    return String.format(
+        "files=%d calls=%d resolved=%d cacheHits=%d astFallbacks=%d unresolved=%d degraded=%d"
+            + " elapsed=%dms",
+        count(FILES),
+        count(CALLS),
+        count(RESOLVED),
+        count(CACHE_HITS),
+        count(AST_FALLBACKS),
+        count(UNRESOLVED),
+        count(DEGRADED),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+  }
+}
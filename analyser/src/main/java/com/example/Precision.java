@@ -0,0 +1,102 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How much time call resolution may spend, traded against the precision of the call graph.
+ *
+ * <p>The symbol solver cannot be interrupted, so budgets are enforced between calls: once a file
+ * has spent its budget, its remaining calls are resolved from the AST. A call over its own budget
+ * counts as a failure of its scope type, and a scope type that failed often enough trips a circuit
+ * breaker that keeps the solver away from it for the rest of the run. Calls on types in the skipped
+ * packages are never resolved at all. Every edge produced by one of these shortcuts is reported in
+ * {@link DegradedEdges}.
+ */
+public class Precision {
+  /** Every call goes through the solver, however long it takes. */
+  public static final Precision FULL = new Precision("full", 0, 0, 0, List.of());
+
+  public static final Precision BALANCED =
+      new Precision(
+          "balanced",
+          TimeUnit.MILLISECONDS.toNanos(250),
+          TimeUnit.SECONDS.toNanos(10),
+          5,
+          List.of("java.", "javax."));
+
+  public static final Precision FAST =
+      new Precision(
+          "fast",
+          TimeUnit.MILLISECONDS.toNanos(25),
+          TimeUnit.SECONDS.toNanos(1),
+          2,
+          List.of(
+              "java.",
+              "javax.",
+              "jakarta.",
+              "org.springframework.",
+              "org.slf4j.",
+              "org.apache.commons.",
+              "com.fasterxml.jackson.",
+              "com.google.common.",
+              "lombok."));
+
+  public final String name;
+  /** Resolution time after which a call counts as failed; 0 for no limit. */
+  public final long callBudgetNanos;
+  /** Resolution time after which the rest of a file falls back to the AST; 0 for no limit. */
+  public final long fileBudgetNanos;
+  /** Failures of a scope type before the solver is no longer tried for it; 0 for never. */
+  public final int failureThreshold;
+  /** Prefixes of the packages whose methods are named from the AST without resolving. */
+  public final List<String> skippedPackages;
+
+  public Precision(
+      String name,
+      long callBudgetNanos,
+      long fileBudgetNanos,
+      int failureThreshold,
+      List<String> skippedPackages) {
+    this.name = name;
+    this.callBudgetNanos = callBudgetNanos;
+    this.fileBudgetNanos = fileBudgetNanos;
+    this.failureThreshold = failureThreshold;
+    this.skippedPackages = skippedPackages;
+  }
+
+  /** The tier called {@code name}: fast, balanced or full. */
+  public static Precision forName(String name) {
+    switch (name) {
+      case "fast": return FAST;
+      case "balanced": return BALANCED;
+      case "full": return FULL;
+      default:
+        throw new IllegalArgumentException(
+            "Unknown precision " + name + ", expected fast, balanced or full");
+    }
+  }
+
+  /** This tier with more packages skipped. */
+  public Precision withSkippedPackages(List<String> packages) {
+    List<String> skipped = new ArrayList<>(skippedPackages);
+    skipped.addAll(packages);
+    return new Precision(name, callBudgetNanos, fileBudgetNanos, failureThreshold, skipped);
+  }
+
+  public boolean isSkipped(String typeName) {
+    for (String prefix : skippedPackages) {
+      if (typeName.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Name and skipped packages, which together decide what the outputs contain. */
+  @Override
+  public String toString() {
+    return skippedPackages.isEmpty() ? name : name + " " + String.join(",", skippedPackages);
+  }
+}
@@ -0,0 +1,135 @@
+package com.example;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe LRU cache of method-call resolutions to callee signatures, shared by all files and workers.
+ *
+ * <p>Keys describe a call site independently of where it appears: resolved scope type, method name
+ * and argument types. The cache is split into independently locked segments so parallel workers
+ * rarely wait on each other.
+ */
+public class ResolutionCache {
+  public static final int DEFAULT_CAPACITY = 200_000;
+
+  /** Cached marker for calls the symbol solver could not resolve; never a real signature. */
+  public static final String UNRESOLVABLE = "\0UNRESOLVABLE";
+
+  private static final int SEGMENTS = 16;
+
+  private final Segment[] segments = new Segment[SEGMENTS];
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  private class Segment extends LinkedHashMap<String, String> {
+    private static final long serialVersionUID = 1L;
+
+    private final int capacity;
+
+    Segment(int capacity) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+      if (size() > capacity) {
+        evictions.increment();
+        return true;
+      }
+      return false;
+    }
+  }
+
+  public ResolutionCache() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public ResolutionCache(int capacity) {
+    int segmentCapacity = Math.max(1, capacity / SEGMENTS);
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment(segmentCapacity);
+    }
+  }
+
+  /** Returns the cached signature, {@link #UNRESOLVABLE}, or null on a miss. */
+  public String get(String key) {
+    Segment segment = segmentFor(key);
+    String value;
+    synchronized (segment) {
+      value = segment.get(key);
+    }
+    if (value == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return value;
+  }
+
+  public void put(String key, String value) {
+    Segment segment = segmentFor(key);
+    synchronized (segment) {
+      segment.put(key, value);
+    }
+  }
+
+  /** Drops every entry matching {@code filter}, given key and value, and returns how many. */
+  public int removeIf(BiPredicate<String, String> filter) {
+    int removed = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        Iterator<Map.Entry<String, String>> it = segment.entrySet().iterator();
+        while (it.hasNext()) {
+          Map.Entry<String, String> entry = it.next();
+          if (filter.test(entry.getKey(), entry.getValue())) {
+            it.remove();
+            removed++;
+          }
+        }
+      }
+    }
+    return removed;
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  public int size() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  @Override
+  public String toString() {
+    long hitCount = getHits();
+    long total = hitCount + getMisses();
+    return String.format(
+        "hits=%d misses=%d evictions=%d size=%d hitRate=%.1f%%",
+        hitCount, getMisses(), getEvictions(), size(), total == 0 ? 0.0 : 100.0 * hitCount / total);
+  }
+
+  private Segment segmentFor(String key) {
+    int h = key.hashCode();
+    return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+  }
+}
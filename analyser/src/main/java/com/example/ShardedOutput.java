@@ -0,0 +1,262 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Writes dependencies.json and code.json as shards, one pair of files per package prefix or hash
+ * bucket, so they can be written in parallel and consumers load only the packages they need.
+ *
+ * <p>Layout under the output directory:
+ *
+ * <pre>
+ * shards.json                          manifest: package to shard, shard to files
+ * shards/dependencies/&lt;shard&gt;.json   same structure as dependencies.json
+ * shards/code/&lt;shard&gt;.json           same structure as code.json
+ * </pre>
+ *
+ * <p>The package of a signature is everything before its class and method name (see {@link
+ * #packageOf}); a consumer looks that up in the manifest's {@code packages} map and opens the
+ * files the {@code shards} map names for the shard. Dependencies are sharded by caller.
+ */
+public class ShardedOutput {
+  public static final String MANIFEST_FILE = "shards.json";
+  private static final String DIRECTORY = "shards";
+  private static final int MANIFEST_VERSION = 1;
+  private static final String DEFAULT_PACKAGE_SHARD = "_default";
+
+  private final boolean byHash;
+  // Leading package segments per shard, or the number of hash buckets
+  private final int size;
+
+  private ShardedOutput(boolean byHash, int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Shard size must be positive: " + size);
+    }
+    this.byHash = byHash;
+    this.size = size;
+  }
+
+  /**
+   * Parses a sharding scheme: {@code package:N} shards by the first N package segments, {@code
+   * hash:N} spreads packages over N buckets by the CRC-32 of their name.
+   */
+  public static ShardedOutput forSpec(String spec) {
+    int colon = spec.indexOf(':');
+    String scheme = colon < 0 ? spec : spec.substring(0, colon);
+    String size = colon < 0 ? null : spec.substring(colon + 1);
+    switch (scheme) {
+      case "package":
+        return new ShardedOutput(false, size == null ? 3 : Integer.parseInt(size));
+      case "hash":
+        return new ShardedOutput(true, size == null ? 16 : Integer.parseInt(size));
+      default:
+        throw new IllegalArgumentException("Unknown sharding " + spec);
+    }
+  }
+
+  /** Package part of a "package.Class.method(params)" signature; empty for the default package. */
+  public static String packageOf(String signature) {
+    int open = signature.indexOf('(');
+    String qualifiedMethod = open < 0 ? signature : signature.substring(0, open);
+    int methodDot = qualifiedMethod.lastIndexOf('.');
+    int classDot = methodDot < 0 ? -1 : qualifiedMethod.lastIndexOf('.', methodDot - 1);
+    return classDot < 0 ? "" : qualifiedMethod.substring(0, classDot);
+  }
+
+  /** Name of the shard holding {@code packageName}; also its file name without extension. */
+  public String shardOf(String packageName) {
+    if (byHash) {
+      CRC32 crc = new CRC32();
+      crc.update(packageName.getBytes(StandardCharsets.UTF_8));
+      return String.format("bucket-%03d", crc.getValue() % size);
+    }
+    if (packageName.isEmpty()) {
+      return DEFAULT_PACKAGE_SHARD;
+    }
+    int end = -1;
+    for (int i = 0; i < size; i++) {
+      end = packageName.indexOf('.', end + 1);
+      if (end < 0) {
+        return packageName;
+      }
+    }
+    return packageName.substring(0, end);
+  }
+
+  @Override
+  public String toString() {
+    return (byHash ? "hash:" : "package:") + size;
+  }
+
+  /**
+   * Writes the shards of {@code graph} and {@code codeMap} with {@code threads} writers, then the
+   * manifest. Shards of an earlier run are deleted first, and so are the unsharded files.
+   */
+  public void write(Path outputDir, CallGraph graph, Map<String, String> codeMap, int threads)
+      throws IOException {
+    // Group first, so each shard is written by one task without locking
+    Map<String, Shard> shards = new TreeMap<>();
+    Map<String, String> packages = new TreeMap<>();
+    for (int id = graph.nextCaller(0); id >= 0; id = graph.nextCaller(id + 1)) {
+      shard(shards, packages, graph.signature(id)).callers.add(id);
+    }
+    for (String key : codeMap.keySet()) {
+      shard(shards, packages, key).codeKeys.add(key);
+    }
+
+    deleteShards(outputDir);
+    Files.deleteIfExists(outputDir.resolve("dependencies.json"));
+    Files.deleteIfExists(outputDir.resolve("code.json"));
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+    try {
+      List<Future<?>> writes = new ArrayList<>();
+      for (Shard shard : shards.values()) {
+        writes.add(pool.submit(() -> shard.write(outputDir, graph, codeMap)));
+      }
+      for (Future<?> write : writes) {
+        write.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Writing shards interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Writing shards failed: " + e.getCause().getMessage(), e.getCause());
+    } finally {
+      pool.shutdown();
+    }
+    writeManifest(outputDir, shards, packages);
+  }
+
+  private Shard shard(Map<String, Shard> shards, Map<String, String> packages, String signature) {
+    String packageName = packageOf(signature);
+    String name = packages.computeIfAbsent(packageName, this::shardOf);
+    return shards.computeIfAbsent(name, Shard::new);
+  }
+
+  private void writeManifest(
+      Path outputDir, Map<String, Shard> shards, Map<String, String> packages) throws IOException {
+    try (JsonOutput out = new JsonOutput(outputDir.resolve(MANIFEST_FILE))) {
+      out.raw("{\n  \"version\": " + MANIFEST_VERSION + ",\n  \"shardBy\": ")
+          .string(toString())
+          .raw(",\n  \"packages\": {");
+      int count = 0;
+      for (Map.Entry<String, String> e : packages.entrySet()) {
+        out.raw(count++ == 0 ? "\n    " : ",\n    ")
+            .string(e.getKey())
+            .raw(": ")
+            .string(e.getValue());
+      }
+      out.raw("\n  },\n  \"shards\": {");
+      count = 0;
+      for (Shard shard : shards.values()) {
+        out.raw(count++ == 0 ? "\n    " : ",\n    ").string(shard.name)
+            .raw(": {\"dependencies\": ").string(shard.dependencyFile())
+            .raw(", \"code\": ").string(shard.codeFile())
+            .raw(", \"callers\": " + shard.callers.size())
+            .raw(", \"methods\": " + shard.codeKeys.size() + "}");
+      }
+      out.raw("\n  }\n}\n");
+    }
+  }
+
+  // Callers and code keys of one shard, as relative file names and contents
+  private static class Shard {
+    final String name;
+    final List<Integer> callers = new ArrayList<>();
+    final List<String> codeKeys = new ArrayList<>();
+
+    Shard(String name) {
+      this.name = name;
+    }
+
+    String dependencyFile() {
+      return DIRECTORY + "/dependencies/" + name + ".json";
+    }
+
+    String codeFile() {
+      return DIRECTORY + "/code/" + name + ".json";
+    }
+
+    Void write(Path outputDir, CallGraph graph, Map<String, String> codeMap) throws IOException {
+      try (MethodDependencyWriter writer =
+          new MethodDependencyWriter(outputDir.resolve(dependencyFile()).toString())) {
+        for (int id : callers) {
+          writer.write(graph, id);
+        }
+      }
+      try (MethodCodeWriter writer =
+          new MethodCodeWriter(outputDir.resolve(codeFile()).toString())) {
+        for (String key : codeKeys) {
+          writer.write(key, codeMap.get(key));
+        }
+      }
+      return null;
+    }
+  }
+
+  /** True if the output directory holds sharded outputs. */
+  public static boolean exists(Path outputDir) {
+    return Files.exists(outputDir.resolve(MANIFEST_FILE));
+  }
+
+  /** Deletes the manifest and shard files, e.g. before unsharded outputs are written. */
+  public static void deleteShards(Path outputDir) throws IOException {
+    Files.deleteIfExists(outputDir.resolve(MANIFEST_FILE));
+    for (String kind : List.of("dependencies", "code")) {
+      Path directory = outputDir.resolve(DIRECTORY).resolve(kind);
+      if (Files.isDirectory(directory)) {
+        try (Stream<Path> files = Files.list(directory)) {
+          for (Path file : (Iterable<Path>) files::iterator) {
+            if (file.toString().endsWith(".json")) {
+              Files.delete(file);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /** Reads every shard, passing each caller's callees and each method's code to the consumers. */
+  @SuppressWarnings("unchecked")
+  public static void readAll(
+      Path outputDir,
+      BiConsumer<String, List<String>> dependencies,
+      BiConsumer<String, String> code)
+      throws IOException {
+    Map<String, Object> manifest =
+        (Map<String, Object>) JsonReader.read(outputDir.resolve(MANIFEST_FILE));
+    for (Object value : ((Map<String, Object>) manifest.get("shards")).values()) {
+      Map<String, Object> shard = (Map<String, Object>) value;
+      Path dependencyFile = outputDir.resolve((String) shard.get("dependencies"));
+      Map<String, Object> rows = (Map<String, Object>) JsonReader.read(dependencyFile);
+      rows.forEach((caller, callees) -> dependencies.accept(caller, (List<String>) callees));
+      Map<String, Object> methods =
+          (Map<String, Object>) JsonReader.read(outputDir.resolve((String) shard.get("code")));
+      methods.forEach((key, source) -> code.accept(key, (String) source));
+    }
+  }
+
+  /** The call graph of an output directory, from dependencies.json or from the shards. */
+  public static CallGraph readCallGraph(Path outputDir) throws IOException {
+    if (!exists(outputDir)) {
+      return CallGraph.readJson(outputDir.resolve("dependencies.json").toString());
+    }
+    CallGraph.Builder builder = new CallGraph.Builder();
+    readAll(outputDir, builder::put, (key, source) -> {});
+    return builder.build();
+  }
+}
@@ -0,0 +1,18 @@
+package com.example;
+
+import com.github.javaparser.ast.CompilationUnit;
+import java.nio.file.Path;
+
+/** A Java source file that has been parsed once and is shared by every {@link SourceFileVisitor}. */
+public class SourceFile {
+  public final Path path;
+  public final CompilationUnit compilationUnit;
+  // Source text the compilation unit was parsed from, read once by the pipeline
+  public final String content;
+
+  public SourceFile(Path path, CompilationUnit compilationUnit, String content) {
+    this.path = path;
+    this.compilationUnit = compilationUnit;
+    this.content = content;
+  }
+}
@@ -0,0 +1,11 @@
+package com.example;
+
+/**
+ * An extractor that takes part in the single analysis pass of {@link AnalysisPipeline}.
+ *
+ * <p>Implementations receive every parsed source file exactly once and accumulate their own
+ * results. When the pipeline runs with several threads, {@link #visit} is called concurrently.
+ */
+public interface SourceFileVisitor {
+  void visit(SourceFile sourceFile) throws Exception;
+}
@@ -0,0 +1,60 @@
+package com.example;
+
+import java.util.Arrays;
+
+/**
+ * The content of a source file with an index of line start offsets, so that whole-line ranges
+ * can be cut out with a single substring instead of re-reading and re-joining lines.
+ */
+public class SourceText {
+  private final String content;
+  // Offset of the first character of each line; lineStarts[i] belongs to line i + 1
+  private final int[] lineStarts;
+  private final int lineCount;
+
+  public SourceText(String content) {
+    this.content = content;
+    int[] starts = new int[64];
+    int count = 1;
+    for (int i = 0; i < content.length(); i++) {
+      char c = content.charAt(i);
+      if (c == '\r' && i + 1 < content.length() && content.charAt(i + 1) == '\n') {
+        i++;
+      } else if (c != '\n' && c != '\r') {
+        continue;
+      }
+      if (count == starts.length) {
+        starts = Arrays.copyOf(starts, count * 2);
+      }
+      starts[count++] = i + 1;
+    }
+    this.lineStarts = starts;
+    // A trailing line terminator does not start another line
+    this.lineCount = count > 1 && starts[count - 1] == content.length() ? count - 1 : count;
+  }
+
+  /**
+   * Returns lines {@code begin} to {@code end} (1-based, inclusive) joined with '\n', or null if
+   * the range is outside the text.
+   */
+  public String lines(int begin, int end) {
+    if (begin <= 0 || end > lineCount || begin > end) {
+      return null;
+    }
+    int from = lineStarts[begin - 1];
+    int to = lineEnd(end);
+    String slice = content.substring(from, to);
+    if (slice.indexOf('\r') >= 0) {
+      slice = slice.replace("\r\n", "\n").replace('\r', '\n');
+    }
+    return slice;
+  }
+
+  // Offset just past the last character of the line, excluding its terminator
+  private int lineEnd(int line) {
+    int end = line < lineCount ? lineStarts[line] : content.length();
+    if (end > lineStarts[line - 1] && content.charAt(end - 1) == '\n') end--;
+    if (end > lineStarts[line - 1] && content.charAt(end - 1) == '\r') end--;
+    return end;
+  }
+}
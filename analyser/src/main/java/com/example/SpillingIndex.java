@@ -0,0 +1,247 @@
+package com.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Full analysis whose results are held within a memory limit rather than in maps that grow with
+ * the project. Per-file results go to {@link ExternalSorter}s, which spill sorted runs to a
+ * temporary directory under the output directory, and dependencies.json, callers.json, code.json,
+ * degraded.json and call_sites.json are written by merging the runs. Keys come out sorted.
+ *
+ * <p>Endpoints are few and stay in memory. No manifest is written, so the next incremental run
+ * into the same directory analyses everything; the binary index needs the whole call graph in
+ * memory and is not written.
+ */
+public class SpillingIndex implements SourceFileVisitor, Closeable {
+  // Separates callee and caller in the keys of the reverse index; sorts before any other character
+  private static final char CALLER_SEPARATOR = '\0';
+
+  private final Path outputDir;
+  private final Path spillDir;
+  private final long memoryLimit;
+  private final DependencyAnalyzer dependencyAnalyzer;
+  private final CodeExtractor codeExtractor;
+  private final APIExtractor apiExtractor;
+
+  private final ExternalSorter dependencies;
+  private final ExternalSorter code;
+  private final ExternalSorter degraded;
+  private final ExternalSorter sites;
+  private final List<APIEndpoint> endpoints = Collections.synchronizedList(new ArrayList<>());
+
+  /**
+   * @param memoryLimit estimated heap bytes that buffered results may take, e.g. 512 MB; the
+   *     parser, symbol solver and their caches come on top
+   */
+  public SpillingIndex(
+      String outputDir,
+      long memoryLimit,
+      DependencyAnalyzer dependencyAnalyzer,
+      CodeExtractor codeExtractor,
+      APIExtractor apiExtractor)
+      throws IOException {
+    this.outputDir = Paths.get(outputDir);
+    Files.createDirectories(this.outputDir);
+    this.spillDir = Files.createTempDirectory(this.outputDir, ".spill-");
+    this.memoryLimit = memoryLimit;
+    this.dependencyAnalyzer = dependencyAnalyzer;
+    this.codeExtractor = codeExtractor;
+    this.apiExtractor = apiExtractor;
+    // Code is the bulk of the results; the reverse index later reuses the freed code budget
+    this.dependencies = new ExternalSorter(spillDir, "dependencies", memoryLimit / 4);
+    this.code = new ExternalSorter(spillDir, "code", memoryLimit / 2);
+    this.degraded = new ExternalSorter(spillDir, "degraded", memoryLimit / 8);
+    this.sites = new ExternalSorter(spillDir, "sites", memoryLimit / 8);
+  }
+
+  @Override
+  public void visit(SourceFile sourceFile) throws IOException {
+    Map<String, List<String>> fileDependencies =
+        dependencyAnalyzer.analyzeCalls(sourceFile.compilationUnit);
+    Map<String, String> fileCode =
+        codeExtractor.analyzeCompilationUnit(sourceFile.compilationUnit, sourceFile.content);
+    endpoints.addAll(apiExtractor.extractFromSourceFile(sourceFile));
+
+    DegradedEdges degradedEdges = dependencyAnalyzer.getDegradedEdges();
+    CallSites callSites = dependencyAnalyzer.getCallSites();
+    for (Map.Entry<String, List<String>> e : fileDependencies.entrySet()) {
+      dependencies.put(e.getKey(), e.getValue());
+      List<DegradedEdges.Edge> edges = degradedEdges.get(e.getKey());
+      if (!edges.isEmpty()) {
+        degraded.put(
+            e.getKey(),
+            edges.stream().map(DegradedEdges.Edge::encode).collect(Collectors.toList()));
+      }
+      List<CallSites.Edge> calls = callSites.get(e.getKey());
+      if (!calls.isEmpty()) {
+        sites.put(
+            e.getKey(), calls.stream().map(CallSites.Edge::encode).collect(Collectors.toList()));
+      }
+    }
+    // Moved to the sorters, so they do not pile up in the analyzer
+    degradedEdges.removeAll(fileDependencies.keySet());
+    callSites.removeAll(fileDependencies.keySet());
+    for (Map.Entry<String, String> e : fileCode.entrySet()) {
+      code.put(e.getKey(), List.of(e.getValue()));
+    }
+  }
+
+  /** Sorted runs written so far, over all outputs. */
+  public int runCount() {
+    return dependencies.runCount() + code.runCount() + degraded.runCount() + sites.runCount();
+  }
+
+  /** Merges the runs into the output files; one failing file does not stop the others. */
+  public void writeOutputs(boolean binaryIndex) {
+    Metrics.Timer timer = Metrics.get().time(Metrics.WRITE);
+    try {
+      writeOutputFiles(binaryIndex);
+    } finally {
+      timer.close();
+    }
+  }
+
+  private void writeOutputFiles(boolean binaryIndex) {
+    // write code first, which frees its budget for the reverse index
+    try (MethodCodeWriter writer =
+        new MethodCodeWriter(outputDir.resolve("code.json").toString())) {
+      code.merge((key, values) -> writer.write(key, values.get(0)));
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
+      e.printStackTrace();
+    }
+    closeQuietly(code);
+
+    // write dependencies, collecting (callee, caller) pairs for the reverse index
+    try (ExternalSorter callers = new ExternalSorter(spillDir, "callers", memoryLimit / 2)) {
+      try (MethodDependencyWriter writer =
+          new MethodDependencyWriter(outputDir.resolve("dependencies.json").toString())) {
+        dependencies.merge(
+            (caller, callees) -> {
+              writer.writeSignatures(caller, callees);
+              for (String callee : callees) {
+                callers.put(callee + CALLER_SEPARATOR + caller, List.of());
+              }
+            });
+      }
+      closeQuietly(dependencies);
+      writeCallers(callers);
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
+      e.printStackTrace();
+    }
+
+    // write API endpoints
+    try {
+      APIEndpointWriter.writeAsJson(endpoints, outputDir.resolve(APIEndpoint.FILE).toString());
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
+      e.printStackTrace();
+    }
+
+    // write the edges the precision tier named without the solver
+    try (JsonOutput out = new JsonOutput(outputDir.resolve(DegradedEdges.FILE))) {
+      out.raw("{");
+      int[] count = {0};
+      degraded.merge(
+          (caller, edges) ->
+              DegradedEdges.writeCaller(
+                  out,
+                  count[0]++,
+                  caller,
+                  edges.stream().map(DegradedEdges.Edge::decode).collect(Collectors.toList())));
+      out.raw("\n}\n");
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
+      e.printStackTrace();
+    }
+
+    // write the count and positions of the calls behind each edge
+    try (JsonOutput out = new JsonOutput(outputDir.resolve(CallSites.FILE))) {
+      out.raw("{");
+      int[] count = {0};
+      sites.merge(
+          (caller, edges) ->
+              CallSites.writeCaller(
+                  out,
+                  count[0]++,
+                  caller,
+                  edges.stream().map(CallSites.Edge::decode).collect(Collectors.toList())));
+      out.raw("\n}\n");
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
+      e.printStackTrace();
+    }
+
+    if (binaryIndex) {
+      System.err.println("Error: the binary index is not written with a memory limit");
+    }
+
+    // outputs no longer match a previous manifest, nor shards of an earlier run
+    try {
+      Files.deleteIfExists(outputDir.resolve(IncrementalIndex.MANIFEST_FILE));
+      ShardedOutput.deleteShards(outputDir);
+    } catch (Exception e) {
+      System.err.println("Error: " + e.getMessage());
+      e.printStackTrace();
+    }
+  }
+
+  // Pairs come sorted by callee, so the callers of one callee are adjacent
+  private void writeCallers(ExternalSorter callers) throws IOException {
+    try (JsonOutput out = new JsonOutput(outputDir.resolve("callers.json"))) {
+      out.raw("{\n");
+      String[] current = {null};
+      int[] count = {0};
+      callers.merge(
+          (pair, values) -> {
+            int separator = pair.indexOf(CALLER_SEPARATOR);
+            String callee = pair.substring(0, separator);
+            if (!callee.equals(current[0])) {
+              if (current[0] != null) {
+                out.raw("]");
+              }
+              out.raw(count[0]++ == 0 ? "  " : ",\n  ").string(callee).raw(": [");
+              current[0] = callee;
+            } else {
+              out.raw(", ");
+            }
+            out.string(pair.substring(separator + 1));
+          });
+      out.raw(current[0] != null ? "]\n}\n" : "}\n");
+    }
+  }
+
+  /** Deletes the runs and the temporary directory. */
+  @Override
+  public void close() throws IOException {
+    dependencies.close();
+    code.close();
+    degraded.close();
+    sites.close();
+    try (Stream<Path> left = Files.list(spillDir)) {
+      for (Path file : (Iterable<Path>) left::iterator) {
+        Files.deleteIfExists(file);
+      }
+    }
+    Files.deleteIfExists(spillDir);
+  }
+
+  private static void closeQuietly(ExternalSorter sorter) {
+    try {
+      sorter.close();
+    } catch (IOException e) {
+      System.err.println("Error: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns method signatures into dense int ids, so each distinct signature string is stored once
+ * no matter how many call edges refer to it. Safe for concurrent interning by parallel workers.
+ */
+public class SymbolTable {
+  private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+  private String[] names = new String[1024];
+  private int size = 0;
+
+  /** Returns the id of {@code signature}, assigning the next free id on first sight. */
+  public int intern(String signature) {
+    Integer id = ids.get(signature);
+    if (id != null) {
+      return id;
+    }
+    synchronized (this) {
+      id = ids.get(signature);
+      if (id != null) {
+        return id;
+      }
+      if (size == names.length) {
+        names = Arrays.copyOf(names, size * 2);
+      }
+      names[size] = signature;
+      ids.put(signature, size);
+      return size++;
+    }
+  }
+
+  /** Returns the id of {@code signature}, or -1 if it was never interned. */
+  public int lookup(String signature) {
+    Integer id = ids.get(signature);
+    return id == null ? -1 : id;
+  }
+
+  public synchronized String name(int id) {
+    return names[id];
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  /** Copy of the id-to-signature table, safe to read without locking. */
+  synchronized String[] snapshot() {
+    return Arrays.copyOf(names, size);
+  }
+}
@@ -0,0 +1,368 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Writes synthetic Spring-style source trees of any size, to measure how the analyser scales
+ * without access to real projects.
+ *
+ * <p>Every package {@code com.synthetic.pN} holds an entity, a repository, services and REST
+ * controllers. Services are spread over {@link Shape#depth} layers. Each method calls {@link
+ * Shape#fanOut} methods of services one layer down, and the last layer calls the repository, so
+ * every endpoint reaches {@code depth} layers of services. Overloads, generic return types and
+ * chained calls can be switched on to exercise the harder parts of call resolution. Output only
+ * depends on the shape, including its seed.
+ */
+public class SyntheticProjectGenerator {
+
+  /** Size and features of a generated project. */
+  public static class Shape {
+    public int packages = 10;
+    public int controllers = 2;
+    public int services = 8;
+    // Methods per service and endpoints per controller
+    public int methods = 5;
+    public int fanOut = 3;
+    public int depth = 4;
+    // Parameter lists per service method, 1 to 4
+    public int overloads = 2;
+    public boolean generics = true;
+    public boolean chainedCalls = true;
+    public long seed = 42;
+
+    /** Number of methods a project of this shape declares, without constructors and accessors. */
+    public long methodCount() {
+      return (long) packages * (services * methods * overloads + controllers * methods);
+    }
+  }
+
+  private static final String ROOT_PACKAGE = "com.synthetic";
+  private static final String[] PARAMETERS = {"int id", "String key", "int id, String key", "long id"};
+  private static final String[] ARGUMENTS = {"%d", "\"k%d\"", "%d, \"k%d\"", "%dL"};
+  private static final String[] MAPPINGS = {"GetMapping", "PostMapping", "PutMapping", "DeleteMapping"};
+
+  private final Shape shape;
+  private final Random random;
+  // Service indexes of each layer, the same in every package
+  private final List<List<Integer>> layers = new ArrayList<>();
+
+  public SyntheticProjectGenerator(Shape shape) {
+    if (shape.packages < 1 || shape.services < 1 || shape.methods < 1 || shape.depth < 1) {
+      throw new IllegalArgumentException("packages, services, methods and depth must be positive");
+    }
+    if (shape.overloads < 1 || shape.overloads > PARAMETERS.length) {
+      throw new IllegalArgumentException("overloads must be between 1 and " + PARAMETERS.length);
+    }
+    this.shape = shape;
+    this.random = new Random(shape.seed);
+    for (int layer = 0; layer < shape.depth; layer++) {
+      layers.add(new ArrayList<>());
+    }
+    for (int s = 0; s < shape.services; s++) {
+      layers.get(s * shape.depth / shape.services).add(s);
+    }
+    layers.removeIf(List::isEmpty);
+  }
+
+  /** Writes the project below {@code sourceRoot} and returns the number of files written. */
+  public int generate(Path sourceRoot) throws IOException {
+    int files = 0;
+    if (shape.generics) {
+      write(sourceRoot, ROOT_PACKAGE + ".common", "Page", page());
+      files++;
+    }
+    for (int p = 0; p < shape.packages; p++) {
+      String pkg = packageName(p);
+      write(sourceRoot, pkg, "Item" + p, item(p));
+      write(sourceRoot, pkg, "Repository" + p, repository(p));
+      files += 2;
+      for (int layer = 0; layer < layers.size(); layer++) {
+        for (int s : layers.get(layer)) {
+          write(sourceRoot, pkg, serviceName(p, s), service(p, s, layer));
+          files++;
+        }
+      }
+      for (int c = 0; c < shape.controllers; c++) {
+        write(sourceRoot, pkg, "Controller" + p + "_" + c, controller(p, c));
+        files++;
+      }
+    }
+    return files;
+  }
+
+  private String page() {
+    return "package " + ROOT_PACKAGE + ".common;\n\n"
+        + "import java.util.List;\n"
+        + "import java.util.function.Function;\n"
+        + "import java.util.stream.Collectors;\n\n"
+        + "public class Page<T> {\n"
+        + "  private final List<T> items;\n\n"
+        + "  public Page(List<T> items) {\n"
+        + "    this.items = items;\n"
+        + "  }\n\n"
+        + "  public <R> Page<R> map(Function<? super T, ? extends R> mapper) {\n"
+        + "    return new Page<>(items.stream().map(mapper).collect(Collectors.toList()));\n"
+        + "  }\n\n"
+        + "  public T first() {\n"
+        + "    return items.isEmpty() ? null : items.get(0);\n"
+        + "  }\n\n"
+        + "  public List<T> getItems() {\n"
+        + "    return items;\n"
+        + "  }\n"
+        + "}\n";
+  }
+
+  private String item(int p) {
+    String type = "Item" + p;
+    return "package " + packageName(p) + ";\n\n"
+        + "public class " + type + " {\n"
+        + "  private final long id;\n"
+        + "  private final String name;\n\n"
+        + "  public " + type + "(long id, String name) {\n"
+        + "    this.id = id;\n"
+        + "    this.name = name;\n"
+        + "  }\n\n"
+        + "  public long getId() {\n"
+        + "    return id;\n"
+        + "  }\n\n"
+        + "  public String getName() {\n"
+        + "    return name;\n"
+        + "  }\n\n"
+        + "  public " + type + " withName(String name) {\n"
+        + "    return new " + type + "(id, name);\n"
+        + "  }\n"
+        + "}\n";
+  }
+
+  private String repository(int p) {
+    String type = "Item" + p;
+    return "package " + packageName(p) + ";\n\n"
+        + "import java.util.List;\n"
+        + "import java.util.Optional;\n\n"
+        + "public interface Repository" + p + " {\n"
+        + "  Optional<" + type + "> findById(long id);\n\n"
+        + "  List<" + type + "> findAll();\n\n"
+        + "  " + type + " save(" + type + " item);\n"
+        + "}\n";
+  }
+
+  private String service(int p, int s, int layer) {
+    String name = serviceName(p, s);
+    List<int[]> targets = layer + 1 < layers.size() ? pickServices(layers.get(layer + 1)) : null;
+    Set<String> imports = new TreeSet<>();
+    imports.add("org.springframework.stereotype.Service");
+    StringBuilder fields = new StringBuilder();
+    StringBuilder parameters = new StringBuilder();
+    StringBuilder assignments = new StringBuilder();
+    if (targets == null) {
+      dependency("Repository" + p, "repository", fields, parameters, assignments);
+    } else {
+      for (int i = 0; i < targets.size(); i++) {
+        int[] target = targets.get(i);
+        addImport(imports, p, target[0], serviceName(target[0], target[1]));
+        dependency(serviceName(target[0], target[1]), "dep" + i, fields, parameters, assignments);
+      }
+    }
+
+    StringBuilder methods = new StringBuilder();
+    for (int k = 0; k < shape.methods; k++) {
+      for (int v = 0; v < shape.overloads; v++) {
+        methods.append("\n  public ").append(returnType(p)).append(" op").append(k)
+            .append('(').append(PARAMETERS[v]).append(") {\n");
+        if (targets == null) {
+          methods.append(repositoryCalls(k));
+        } else {
+          methods.append(calls(p, targets, imports));
+        }
+        methods.append("    return ").append(returnValue(p, "op" + k)).append(";\n  }\n");
+      }
+    }
+    if (shape.generics) {
+      imports.add(ROOT_PACKAGE + ".common.Page");
+      imports.add("java.util.List");
+    }
+    return classSource(p, imports, "@Service", name, fields, parameters, assignments, methods);
+  }
+
+  private String controller(int p, int c) {
+    String name = "Controller" + p + "_" + c;
+    List<int[]> targets = pickServices(layers.get(0));
+    Set<String> imports = new TreeSet<>();
+    imports.add("org.springframework.web.bind.annotation.*");
+    StringBuilder fields = new StringBuilder();
+    StringBuilder parameters = new StringBuilder();
+    StringBuilder assignments = new StringBuilder();
+    for (int i = 0; i < targets.size(); i++) {
+      int[] target = targets.get(i);
+      addImport(imports, p, target[0], serviceName(target[0], target[1]));
+      dependency(serviceName(target[0], target[1]), "dep" + i, fields, parameters, assignments);
+    }
+
+    StringBuilder methods = new StringBuilder();
+    for (int e = 0; e < shape.methods; e++) {
+      methods.append("\n  @").append(MAPPINGS[e % MAPPINGS.length]).append("(\"/e").append(e)
+          .append("\")\n  public Item").append(p).append(" e").append(e)
+          .append("(@RequestParam(defaultValue = \"0\") int id) {\n")
+          .append(calls(p, targets, imports))
+          .append("    return new Item").append(p).append("(id, \"e").append(e).append("\");\n  }\n");
+    }
+    if (shape.generics) {
+      imports.add(ROOT_PACKAGE + ".common.Page");
+    }
+    String annotations = "@RestController\n@RequestMapping(\"/p" + p + "/c" + c + "\")";
+    return classSource(p, imports, annotations, name, fields, parameters, assignments, methods);
+  }
+
+  // fanOut calls spread over the injected services, alternating plain, chained and local-variable forms
+  private String calls(int p, List<int[]> targets, Set<String> imports) {
+    StringBuilder body = new StringBuilder();
+    for (int i = 0; i < shape.fanOut; i++) {
+      int t = i % targets.size();
+      int targetPackage = targets.get(t)[0];
+      String call =
+          "dep" + t + ".op" + random.nextInt(shape.methods) + "(" + arguments(random.nextInt(shape.overloads), i) + ")";
+      String item = "Item" + targetPackage;
+      int form = shape.chainedCalls ? i % 3 : 0;
+      if (form == 1 && shape.generics) {
+        addImport(imports, p, targetPackage, item);
+        body.append("    int n").append(i).append(" = ").append(call)
+            .append(".map(").append(item).append("::getName).first().length();\n");
+      } else if (form == 1) {
+        body.append("    String s").append(i).append(" = ").append(call)
+            .append(".withName(\"n").append(i).append("\").getName().trim();\n");
+      } else if (form == 2) {
+        addImport(imports, p, targetPackage, item);
+        String type = shape.generics ? "Page<" + item + ">" : item;
+        String value = shape.generics ? "v" + i + ".first()" : "v" + i;
+        body.append("    ").append(type).append(" v").append(i).append(" = ").append(call).append(";\n")
+            .append("    long id").append(i).append(" = ").append(value).append(".getId();\n");
+      } else {
+        body.append("    ").append(call).append(";\n");
+      }
+    }
+    return body.toString();
+  }
+
+  private String repositoryCalls(int k) {
+    return "    long count = repository.findAll().stream().filter(i -> i.getId() > " + k + ").count();\n"
+        + "    repository.findById(" + k + "L).ifPresent(repository::save);\n";
+  }
+
+  private String arguments(int overload, int seed) {
+    return ARGUMENTS[overload].replace("%d", Integer.toString(seed));
+  }
+
+  private String returnType(int p) {
+    return shape.generics ? "Page<Item" + p + ">" : "Item" + p;
+  }
+
+  private String returnValue(int p, String name) {
+    String item = "new Item" + p + "(1, \"" + name + "\")";
+    return shape.generics ? "new Page<>(List.of(" + item + "))" : item;
+  }
+
+  // Distinct services of one layer, picked from any package
+  private List<int[]> pickServices(List<Integer> layer) {
+    List<int[]> picked = new ArrayList<>();
+    Set<Long> seen = new TreeSet<>();
+    int wanted = Math.min(Math.max(1, shape.fanOut), shape.packages * layer.size());
+    while (picked.size() < wanted) {
+      int p = random.nextInt(shape.packages);
+      int s = layer.get(random.nextInt(layer.size()));
+      if (seen.add((long) p * shape.services + s)) {
+        picked.add(new int[] {p, s});
+      }
+    }
+    return picked;
+  }
+
+  private static void dependency(
+      String type,
+      String field,
+      StringBuilder fields,
+      StringBuilder parameters,
+      StringBuilder assignments) {
+    fields.append("  private final ").append(type).append(' ').append(field).append(";\n");
+    parameters.append(parameters.length() == 0 ? "" : ", ").append(type).append(' ').append(field);
+    assignments.append("    this.").append(field).append(" = ").append(field).append(";\n");
+  }
+
+  private static void addImport(Set<String> imports, int fromPackage, int toPackage, String type) {
+    if (fromPackage != toPackage) {
+      imports.add(packageName(toPackage) + "." + type);
+    }
+  }
+
+  private static String classSource(
+      int p,
+      Set<String> imports,
+      String annotations,
+      String name,
+      StringBuilder fields,
+      StringBuilder parameters,
+      StringBuilder assignments,
+      StringBuilder methods) {
+    StringBuilder source = new StringBuilder("package ").append(packageName(p)).append(";\n\n");
+    for (String type : imports) {
+      source.append("import ").append(type).append(";\n");
+    }
+    return source.append('\n').append(annotations).append('\n')
+        .append("public class ").append(name).append(" {\n")
+        .append(fields).append('\n')
+        .append("  public ").append(name).append('(').append(parameters).append(") {\n")
+        .append(assignments).append("  }\n")
+        .append(methods).append("}\n")
+        .toString();
+  }
+
+  private static String packageName(int p) {
+    return ROOT_PACKAGE + ".p" + p;
+  }
+
+  private static String serviceName(int p, int s) {
+    return "Service" + p + "_" + s;
+  }
+
+  private static void write(Path sourceRoot, String pkg, String type, String source)
+      throws IOException {
+    Path directory = sourceRoot.resolve(pkg.replace('.', '/'));
+    Files.createDirectories(directory);
+    Files.write(directory.resolve(type + ".java"), source.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.out.println(
+          "Usage: java -cp java-dependency-analyzer.jar com.example.SyntheticProjectGenerator <output-source-root> [--packages N] [--controllers N] [--services N] [--methods N] [--fan-out N] [--depth N] [--overloads 1-4] [--no-generics] [--no-chained-calls] [--seed N]");
+      return;
+    }
+    Shape shape = new Shape();
+    for (int i = 1; i < args.length; i++) {
+      switch (args[i]) {
+        case "--packages": shape.packages = Integer.parseInt(args[++i]); break;
+        case "--controllers": shape.controllers = Integer.parseInt(args[++i]); break;
+        case "--services": shape.services = Integer.parseInt(args[++i]); break;
+        case "--methods": shape.methods = Integer.parseInt(args[++i]); break;
+        case "--fan-out": shape.fanOut = Integer.parseInt(args[++i]); break;
+        case "--depth": shape.depth = Integer.parseInt(args[++i]); break;
+        case "--overloads": shape.overloads = Integer.parseInt(args[++i]); break;
+        case "--no-generics": shape.generics = false; break;
+        case "--no-chained-calls": shape.chainedCalls = false; break;
+        case "--seed": shape.seed = Long.parseLong(args[++i]); break;
+        default: throw new IllegalArgumentException("Unknown option " + args[i]);
+      }
+    }
+    int files = new SyntheticProjectGenerator(shape).generate(Paths.get(args[0]));
+    System.out.println(
+        "SyntheticProjectGenerator: " + files + " files, " + shape.methodCount() + " methods in " + args[0]);
+  }
+}
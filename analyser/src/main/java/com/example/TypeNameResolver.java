@@ -0,0 +1,468 @@
+package com.example;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.nodeTypes.NodeWithTypeParameters;
+import com.github.javaparser.ast.type.ArrayType;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.ast.type.TypeParameter;
+import com.github.javaparser.ast.type.WildcardType;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+
+/**
+ * Qualifies types as written in source without the symbol solver, in the form the solver's {@code
+ * describe()} uses: {@code java.util.Map<java.lang.String, com.acme.Owner.Pet>}. Every index keys
+ * method parameters this way, so the keys of dependencies.json, code.json and api_endpoints.json
+ * join.
+ *
+ * <p>Simple names are looked up in Java's order: type variables, types declared in the file,
+ * single-type imports, the package, then on-demand imports and java.lang. Whether a candidate
+ * exists is answered by a project-wide index of declared types, nested ones included, the JDK and
+ * the external JAR indexes; answers are kept in size-bounded caches. Names nothing can vouch for
+ * are guessed to be in the file's own package, unless the caller asks for {@link #qualifyIfKnown
+ * strict} results.
+ * Member types inherited from a supertype are not looked up.
+ *
+ * <p>Thread-safe; one instance is meant to be shared by all extractors of a run.
+ */
+public class TypeNameResolver {
+  private static final String JAVA_LANG = "java.lang";
+  // Bounds of the project-wide caches; evicted entries are looked up again when needed
+  private static final int MAX_PROJECT_FILES = 100_000;
+  private static final int MAX_KNOWN_TYPES = 200_000;
+
+  // Package directory roots, in lookup order; a type is taken from the first root declaring it
+  private final List<Path> sourceRoots = new ArrayList<>();
+  private final Predicate<String> externalTypes;
+  // Parsed files shared with the symbol solver, or null
+  private final CompilationUnitCache units;
+  // Per-file import maps and lookups, dropped with their compilation unit
+  private final Cache<CompilationUnit, FileTypes> files =
+      CacheBuilder.newBuilder().weakKeys().build();
+  // Types declared in each source file, by the name of the file's top-level type; empty if none
+  private final ConcurrentMap<String, Set<String>> projectTypes =
+      CacheBuilder.newBuilder().maximumSize(MAX_PROJECT_FILES).<String, Set<String>>build().asMap();
+  // Whether a qualified name exists in the project, the JDK or an external JAR
+  private final ConcurrentMap<String, Boolean> knownTypes =
+      CacheBuilder.newBuilder().maximumSize(MAX_KNOWN_TYPES).<String, Boolean>build().asMap();
+
+  /** Per compilation unit: package, imports, declared types and context-free lookups. */
+  private static class FileTypes {
+    final String packageName;
+    final Map<String, String> singleImports = new HashMap<>();
+    final List<String> onDemandImports = new ArrayList<>();
+    final Map<String, List<TypeDeclaration<?>>> declared = new HashMap<>();
+    final Map<String, Optional<String>> resolved = new ConcurrentHashMap<>();
+    final Map<String, Optional<String>> guessed = new ConcurrentHashMap<>();
+
+    FileTypes(CompilationUnit cu) {
+      packageName = cu.getPackageDeclaration().map(pd -> pd.getNameAsString()).orElse("");
+      for (ImportDeclaration importDecl : cu.getImports()) {
+        if (importDecl.isStatic()) {
+          continue;
+        }
+        String name = importDecl.getNameAsString();
+        if (importDecl.isAsterisk()) {
+          onDemandImports.add(name);
+        } else {
+          singleImports.put(importDecl.getName().getIdentifier(), name);
+        }
+      }
+      onDemandImports.add(JAVA_LANG);
+      for (TypeDeclaration<?> type : cu.findAll(TypeDeclaration.class)) {
+        declared.computeIfAbsent(type.getNameAsString(), n -> new ArrayList<>(1)).add(type);
+      }
+    }
+
+    String inPackage(String name) {
+      return packageName.isEmpty() ? name : packageName + "." + name;
+    }
+  }
+
+  /** Resolver that only knows what the files themselves and the JDK declare. */
+  public TypeNameResolver() {
+    this(List.of(), name -> false);
+  }
+
+  /**
+   * @param sourceRoot root of the project's package directories, or null if unknown
+   * @param externalTypes tells whether a library declares a type with a canonical name
+   */
+  public TypeNameResolver(Path sourceRoot, Predicate<String> externalTypes) {
+    this(sourceRoot == null ? List.of() : List.of(sourceRoot), externalTypes);
+  }
+
+  /**
+   * @param sourceRoots roots of the package directories of every module analysed together
+   * @param externalTypes tells whether a library declares a type with a canonical name
+   */
+  public TypeNameResolver(List<Path> sourceRoots, Predicate<String> externalTypes) {
+    this(sourceRoots, externalTypes, null);
+  }
+
+  /**
+   * @param units parsed files to read project types from before parsing them, and to add to
+   */
+  public TypeNameResolver(
+      List<Path> sourceRoots, Predicate<String> externalTypes, CompilationUnitCache units) {
+    for (Path root : sourceRoots) {
+      this.sourceRoots.add(root.toAbsolutePath().normalize());
+    }
+    this.externalTypes = externalTypes;
+    this.units = units;
+  }
+
+  /** Qualified name of {@code type}, guessing the file's package for names nothing declares. */
+  public String qualify(Type type) {
+    return qualify(type, false);
+  }
+
+  /**
+   * Like {@link #qualify}, but null when any part of the name would be guessed or is a type
+   * variable, whose name means different types in different places.
+   */
+  public String qualifyIfKnown(Type type) {
+    return qualify(type, true);
+  }
+
+  /** Qualified name of a simple type name used at {@code context}, or null if it is not known. */
+  public String qualifyIfKnown(String simpleName, Node context) {
+    return qualifySimple(simpleName, context, true);
+  }
+
+  /**
+   * Forgets what is known about changed or deleted source files, and every cached lookup, since a
+   * new file can shadow a type found elsewhere before.
+   */
+  public void invalidate(Collection<Path> changedFiles) {
+    for (Path file : changedFiles) {
+      String name = topLevelName(file.toAbsolutePath().normalize());
+      if (name != null) {
+        projectTypes.remove(name);
+      }
+    }
+    knownTypes.clear();
+    files.invalidateAll();
+  }
+
+  private String qualify(Type type, boolean strict) {
+    if (type.isPrimitiveType() || type.isVoidType()) {
+      return type.asString();
+    }
+    if (type.isArrayType()) {
+      String component = qualify(((ArrayType) type).getComponentType(), strict);
+      return component == null ? null : component + "[]";
+    }
+    if (type.isWildcardType()) {
+      WildcardType wildcard = type.asWildcardType();
+      if (wildcard.getExtendedType().isPresent()) {
+        String bound = qualify(wildcard.getExtendedType().get(), strict);
+        return bound == null ? null : "? extends " + bound;
+      }
+      if (wildcard.getSuperType().isPresent()) {
+        String bound = qualify(wildcard.getSuperType().get(), strict);
+        return bound == null ? null : "? super " + bound;
+      }
+      return "?";
+    }
+    if (!type.isClassOrInterfaceType()) {
+      // var, union and intersection types
+      return strict ? null : type.asString();
+    }
+    ClassOrInterfaceType classType = type.asClassOrInterfaceType();
+    String name = qualifyRaw(classType, strict);
+    if (name == null) {
+      return null;
+    }
+    Optional<NodeList<Type>> arguments = classType.getTypeArguments();
+    if (arguments.isEmpty() || arguments.get().isEmpty()) {
+      return name;
+    }
+    StringBuilder result = new StringBuilder(name).append('<');
+    for (int i = 0; i < arguments.get().size(); i++) {
+      String argument = qualify(arguments.get().get(i), strict);
+      if (argument == null) {
+        return null;
+      }
+      result.append(i == 0 ? "" : ", ").append(argument);
+    }
+    return result.append('>').toString();
+  }
+
+  // The class name without type arguments; a scope is either a package or an enclosing type
+  private String qualifyRaw(ClassOrInterfaceType type, boolean strict) {
+    if (type.getScope().isEmpty()) {
+      return qualifySimple(type.getNameAsString(), type, strict);
+    }
+    ClassOrInterfaceType scope = type.getScope().get();
+    String scopeName = scope.getNameWithScope();
+    if (Character.isLowerCase(scopeName.charAt(0))) {
+      return scopeName + "." + type.getNameAsString();
+    }
+    String outer = qualifyRaw(scope, strict);
+    return outer == null ? null : outer + "." + type.getNameAsString();
+  }
+
+  private String qualifySimple(String name, Node context, boolean strict) {
+    if (isTypeVariable(name, context)) {
+      return strict ? null : name;
+    }
+    Optional<CompilationUnit> cu = context.findCompilationUnit();
+    if (cu.isEmpty()) {
+      return strict ? null : name;
+    }
+    FileTypes file = fileTypes(cu.get());
+
+    // Declared in this file: the one in the innermost enclosing scope wins over outer and other
+    // nested types
+    List<TypeDeclaration<?>> declared = file.declared.get(name);
+    if (declared != null) {
+      TypeDeclaration<?> match =
+          declared.size() == 1 ? declared.get(0) : innermost(declared, context);
+      if (match != null) {
+        return match.getFullyQualifiedName().orElse(strict ? null : name);
+      }
+    }
+
+    Map<String, Optional<String>> cache = strict ? file.resolved : file.guessed;
+    Optional<String> cached = cache.get(name);
+    if (cached == null) {
+      cached = Optional.ofNullable(lookup(file, name, strict));
+      cache.put(name, cached);
+    }
+    return cached.orElse(null);
+  }
+
+  // Imports, package and on-demand imports; the same for every place in a file
+  private String lookup(FileTypes file, String name, boolean strict) {
+    String imported = file.singleImports.get(name);
+    if (imported != null) {
+      return imported;
+    }
+    String samePackage = file.inPackage(name);
+    if (isProjectType(samePackage)) {
+      return samePackage;
+    }
+    for (String pkg : file.onDemandImports) {
+      String candidate = pkg + "." + name;
+      if (exists(candidate)) {
+        return candidate;
+      }
+    }
+    return strict ? null : samePackage;
+  }
+
+  private FileTypes fileTypes(CompilationUnit cu) {
+    try {
+      return files.get(
+          cu,
+          () -> {
+            register(cu);
+            return new FileTypes(cu);
+          });
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static boolean isTypeVariable(String name, Node context) {
+    for (Node node = context; node != null; node = node.getParentNode().orElse(null)) {
+      if (node instanceof NodeWithTypeParameters) {
+        for (TypeParameter parameter : ((NodeWithTypeParameters<?>) node).getTypeParameters()) {
+          if (parameter.getNameAsString().equals(name)) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  // The type declared directly in the nearest scope around the context, or null if none encloses it
+  private static TypeDeclaration<?> innermost(List<TypeDeclaration<?>> declared, Node context) {
+    for (Node scope = context; scope != null; scope = scope.getParentNode().orElse(null)) {
+      for (TypeDeclaration<?> type : declared) {
+        if (type.getParentNode().orElse(null) == scope) {
+          return type;
+        }
+      }
+    }
+    return null;
+  }
+
+  private boolean exists(String qualifiedName) {
+    return knownTypes.computeIfAbsent(
+        qualifiedName,
+        name -> isProjectType(name) || isJdkType(name) || externalTypes.test(name));
+  }
+
+  /**
+   * True if a project source file declares the type. The file is found from the name: the longest
+   * prefix with a source file names the top-level type, the rest is nested in it.
+   */
+  public boolean isProjectType(String qualifiedName) {
+    if (sourceRoots.isEmpty()) {
+      return false;
+    }
+    for (int end = qualifiedName.length(); end > 0; end = qualifiedName.lastIndexOf('.', end - 1)) {
+      Set<String> declared = typesOfFile(qualifiedName.substring(0, end));
+      if (!declared.isEmpty()) {
+        return declared.contains(qualifiedName);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Declaration of a type a project source file declares, or empty. The unit may be shared with
+   * the symbol solver, so only declarations are to be read from it.
+   */
+  public Optional<TypeDeclaration<?>> findProjectType(String qualifiedName) {
+    if (!isProjectType(qualifiedName)) {
+      return Optional.empty();
+    }
+    for (int end = qualifiedName.length(); end > 0; end = qualifiedName.lastIndexOf('.', end - 1)) {
+      Path file = sourceFile(qualifiedName.substring(0, end));
+      if (file != null) {
+        Optional<CompilationUnit> cu = parse(file);
+        if (cu.isPresent()) {
+          for (TypeDeclaration<?> type : cu.get().findAll(TypeDeclaration.class)) {
+            if (type.getFullyQualifiedName().map(qualifiedName::equals).orElse(false)) {
+              return Optional.of(type);
+            }
+          }
+        }
+        return Optional.empty();
+      }
+    }
+    return Optional.empty();
+  }
+
+  private Set<String> typesOfFile(String topLevelName) {
+    Set<String> declared = projectTypes.get(topLevelName);
+    if (declared == null) {
+      Path file = sourceFile(topLevelName);
+      declared = Collections.emptySet();
+      if (file != null) {
+        declared =
+            parse(file).map(TypeNameResolver::declaredTypes).orElse(Set.of(topLevelName));
+      }
+      projectTypes.putIfAbsent(topLevelName, declared);
+    }
+    return declared;
+  }
+
+  // First root holding the source file of a top-level type, like the solver's lookup order
+  private Path sourceFile(String topLevelName) {
+    String relative = topLevelName.replace('.', File.separatorChar) + ".java";
+    for (Path root : sourceRoots) {
+      Path file = root.resolve(relative);
+      if (Files.isRegularFile(file)) {
+        return file;
+      }
+    }
+    return null;
+  }
+
+  // Only declarations are read, which the solver does not write to
+  private Optional<CompilationUnit> parse(Path file) {
+    if (units != null) {
+      // One lookup: the unit can be evicted between a contains and a get
+      Optional<Optional<CompilationUnit>> cached = units.get(file);
+      if (cached.isPresent()) {
+        return cached.get();
+      }
+    }
+    Optional<CompilationUnit> cu;
+    try {
+      cu = new JavaParser().parse(file).getResult();
+    } catch (IOException e) {
+      return Optional.empty();
+    }
+    if (units != null && cu.isPresent()) {
+      units.put(file, cu);
+    }
+    return cu;
+  }
+
+  // Top-level type a source file below one of the roots is named after, or null
+  private String topLevelName(Path file) {
+    for (Path root : sourceRoots) {
+      if (file.startsWith(root)) {
+        String name = root.relativize(file).toString();
+        if (!name.endsWith(".java")) {
+          return null;
+        }
+        name = name.substring(0, name.length() - ".java".length());
+        return name.replace(File.separatorChar, '.');
+      }
+    }
+    return null;
+  }
+
+  // Files the pipeline has parsed anyway need not be parsed again for the index
+  private void register(CompilationUnit cu) {
+    if (cu.getStorage().isEmpty()) {
+      return;
+    }
+    Path file = cu.getStorage().get().getPath().toAbsolutePath().normalize();
+    String name = topLevelName(file);
+    // A type declared in two modules is indexed from the file the lookup order prefers
+    if (name != null && (sourceRoots.size() == 1 || file.equals(sourceFile(name)))) {
+      projectTypes.putIfAbsent(name, declaredTypes(cu));
+    }
+  }
+
+  private static Set<String> declaredTypes(CompilationUnit cu) {
+    Set<String> names = new HashSet<>();
+    for (TypeDeclaration<?> type : cu.findAll(TypeDeclaration.class)) {
+      type.getFullyQualifiedName().ifPresent(names::add);
+    }
+    return names;
+  }
+
+  private static boolean isJdkType(String qualifiedName) {
+    if (!qualifiedName.startsWith("java") && !qualifiedName.startsWith("jdk")) {
+      return false;
+    }
+    // A nested type's binary name joins it to its outer type with '$': java.util.Map$Entry
+    String binaryName = qualifiedName;
+    while (true) {
+      try {
+        Class.forName(binaryName, false, ClassLoader.getPlatformClassLoader());
+        return true;
+      } catch (ClassNotFoundException | LinkageError e) {
+        int dot = binaryName.lastIndexOf('.');
+        // Only a type, not a package, can hold the segment after the dot
+        int outer = dot < 0 ? -1 : binaryName.lastIndexOf('.', dot - 1) + 1;
+        if (outer < 0 || !Character.isUpperCase(binaryName.charAt(outer))) {
+          return false;
+        }
+        binaryName = binaryName.substring(0, dot) + '$' + binaryName.substring(dot + 1);
+      }
+    }
+  }
+}
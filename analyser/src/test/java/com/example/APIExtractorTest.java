@@ -0,0 +1,72 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class APIExtractorTest {
+  @TempDir Path root;
+
+  @Test
+  void subclassWithoutAnnotationsInheritsControllerAndMappings() throws IOException {
+    write(
+        "com/acme/BaseController.java",
+        "package com.acme;",
+        "import org.springframework.web.bind.annotation.*;",
+        "@RestController",
+        "@RequestMapping(\"/base\")",
+        "public abstract class BaseController {",
+        "  @GetMapping(\"/list\") public abstract String list();",
+        "}");
+    write(
+        "com/acme/FooController.java",
+        "package com.acme;",
+        "public class FooController extends BaseController {",
+        "  public String list() { return \"foo\"; }",
+        "}");
+
+    assertEquals(List.of("GET /base/list (com.acme.FooController.list())"), endpoints());
+  }
+
+  @Test
+  void interfaceMappingsApplyToImplementingController() throws IOException {
+    write(
+        "com/acme/PetApi.java",
+        "package com.acme;",
+        "import org.springframework.web.bind.annotation.*;",
+        "public interface PetApi {",
+        "  @PostMapping(\"/pets\") String create(String body);",
+        "}");
+    write(
+        "com/acme/PetController.java",
+        "package com.acme;",
+        "import org.springframework.web.bind.annotation.RestController;",
+        "@RestController",
+        "public class PetController implements PetApi {",
+        "  public String create(String body) { return body; }",
+        "}");
+
+    assertEquals(
+        List.of("POST /pets (com.acme.PetController.create(java.lang.String))"), endpoints());
+  }
+
+  private List<String> endpoints() throws IOException {
+    return new APIExtractor(new TypeNameResolver(root, name -> false))
+        .analyseProject(root.toString()).stream()
+            .map(APIEndpoint::toString)
+            .sorted()
+            .collect(Collectors.toList());
+  }
+
+  private void write(String relative, String... lines) throws IOException {
+    Path file = root.resolve(relative);
+    Files.createDirectories(file.getParent());
+    Files.write(file, List.of(lines));
+  }
+}
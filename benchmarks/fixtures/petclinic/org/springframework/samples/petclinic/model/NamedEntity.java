@@ -0,0 +1,18 @@
+package org.springframework.samples.petclinic.model;
+
+public class NamedEntity extends BaseEntity {
+  private String name;
+
+  public String getName() {
+    return this.name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  @Override
+  public String toString() {
+    return this.getName();
+  }
+}
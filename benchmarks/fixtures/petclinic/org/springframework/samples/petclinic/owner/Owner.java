@@ -0,0 +1,79 @@
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.samples.petclinic.model.Person;
+
+public class Owner extends Person {
+  private String address;
+  private String city;
+  private String telephone;
+  private final List<Pet> pets = new ArrayList<>();
+
+  public String getAddress() {
+    return this.address;
+  }
+
+  public void setAddress(String address) {
+    this.address = address;
+  }
+
+  public String getCity() {
+    return this.city;
+  }
+
+  public void setCity(String city) {
+    this.city = city;
+  }
+
+  public String getTelephone() {
+    return this.telephone;
+  }
+
+  public void setTelephone(String telephone) {
+    this.telephone = telephone;
+  }
+
+  public List<Pet> getPets() {
+    return this.pets;
+  }
+
+  public void addPet(Pet pet) {
+    if (pet.isNew()) {
+      getPets().add(pet);
+    }
+  }
+
+  public Pet getPet(String name) {
+    return getPet(name, false);
+  }
+
+  public Pet getPet(Integer id) {
+    for (Pet pet : getPets()) {
+      if (!pet.isNew() && pet.getId().equals(id)) {
+        return pet;
+      }
+    }
+    return null;
+  }
+
+  public Pet getPet(String name, boolean ignoreNew) {
+    for (Pet pet : getPets()) {
+      String compName = pet.getName();
+      if (compName != null && compName.equalsIgnoreCase(name)) {
+        if (!ignoreNew || !pet.isNew()) {
+          return pet;
+        }
+      }
+    }
+    return null;
+  }
+
+  public void addVisit(Integer petId, Visit visit) {
+    Pet pet = getPet(petId);
+    if (pet == null) {
+      throw new IllegalArgumentException("Invalid Pet identifier!");
+    }
+    pet.addVisit(visit);
+  }
+}
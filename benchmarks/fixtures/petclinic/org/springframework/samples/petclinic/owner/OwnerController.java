@@ -0,0 +1,69 @@
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+import java.util.Map;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+@org.springframework.stereotype.Controller
+class OwnerController {
+  private static final String VIEWS_OWNER_CREATE_OR_UPDATE_FORM = "owners/createOrUpdateOwnerForm";
+
+  private final OwnerRepository owners;
+
+  public OwnerController(OwnerRepository owners) {
+    this.owners = owners;
+  }
+
+  @GetMapping("/owners/new")
+  public String initCreationForm(Map<String, Object> model) {
+    Owner owner = new Owner();
+    model.put("owner", owner);
+    return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
+  }
+
+  @PostMapping("/owners/new")
+  public String processCreationForm(Owner owner) {
+    this.owners.save(owner);
+    return "redirect:/owners/" + owner.getId();
+  }
+
+  @GetMapping("/owners")
+  public String processFindForm(@RequestParam(defaultValue = "1") int page, Owner owner, Model model) {
+    String lastName = owner.getLastName() == null ? "" : owner.getLastName();
+    List<Owner> results = this.owners.findByLastName(lastName);
+    if (results.isEmpty()) {
+      return "owners/findOwners";
+    }
+    if (results.size() == 1) {
+      return "redirect:/owners/" + results.get(0).getId();
+    }
+    model.addAttribute("listOwners", results);
+    return "owners/ownersList";
+  }
+
+  @GetMapping("/owners/{ownerId}/edit")
+  public String initUpdateOwnerForm(@PathVariable("ownerId") int ownerId, Model model) {
+    Owner owner = this.owners.findById(ownerId).orElseThrow();
+    model.addAttribute(owner);
+    return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
+  }
+
+  @PostMapping("/owners/{ownerId}/edit")
+  public String processUpdateOwnerForm(Owner owner, @PathVariable("ownerId") int ownerId) {
+    owner.setId(ownerId);
+    this.owners.save(owner);
+    return "redirect:/owners/{ownerId}";
+  }
+
+  @GetMapping("/owners/{ownerId}")
+  public String showOwner(@PathVariable("ownerId") int ownerId, Model model) {
+    Owner owner = this.owners.findById(ownerId).orElseThrow();
+    owner.getPets().forEach(pet -> pet.getVisits().size());
+    model.addAttribute(owner);
+    return "owners/ownerDetails";
+  }
+}
@@ -0,0 +1,14 @@
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface OwnerRepository {
+  List<PetType> findPetTypes();
+
+  List<Owner> findByLastName(String lastName);
+
+  Optional<Owner> findById(Integer id);
+
+  void save(Owner owner);
+}
@@ -0,0 +1,37 @@
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.samples.petclinic.model.NamedEntity;
+
+public class Pet extends NamedEntity {
+  private LocalDate birthDate;
+  private PetType type;
+  private final List<Visit> visits = new ArrayList<>();
+
+  public LocalDate getBirthDate() {
+    return this.birthDate;
+  }
+
+  public void setBirthDate(LocalDate birthDate) {
+    this.birthDate = birthDate;
+  }
+
+  public PetType getType() {
+    return this.type;
+  }
+
+  public void setType(PetType type) {
+    this.type = type;
+  }
+
+  public Collection<Visit> getVisits() {
+    return this.visits;
+  }
+
+  public void addVisit(Visit visit) {
+    getVisits().add(visit);
+  }
+}
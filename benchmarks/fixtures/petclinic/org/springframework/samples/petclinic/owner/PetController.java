@@ -0,0 +1,57 @@
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+@org.springframework.stereotype.Controller
+@RequestMapping("/owners/{ownerId}")
+class PetController {
+  private static final String VIEWS_PETS_CREATE_OR_UPDATE_FORM = "pets/createOrUpdatePetForm";
+
+  private final OwnerRepository owners;
+
+  public PetController(OwnerRepository owners) {
+    this.owners = owners;
+  }
+
+  public List<PetType> populatePetTypes() {
+    return this.owners.findPetTypes();
+  }
+
+  public Owner findOwner(@PathVariable("ownerId") int ownerId) {
+    return this.owners.findById(ownerId)
+        .orElseThrow(() -> new IllegalArgumentException("Owner not found " + ownerId));
+  }
+
+  @GetMapping("/pets/new")
+  public String initCreationForm(@PathVariable("ownerId") int ownerId, Model model) {
+    Owner owner = findOwner(ownerId);
+    Pet pet = new Pet();
+    owner.addPet(pet);
+    model.addAttribute("pet", pet);
+    return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
+  }
+
+  @PostMapping("/pets/new")
+  public String processCreationForm(@PathVariable("ownerId") int ownerId, Pet pet) {
+    Owner owner = findOwner(ownerId);
+    if (pet.getName() != null && pet.isNew() && owner.getPet(pet.getName(), true) != null) {
+      return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
+    }
+    owner.addPet(pet);
+    this.owners.save(owner);
+    return "redirect:/owners/{ownerId}";
+  }
+
+  @GetMapping("/pets/{petId}/edit")
+  public String initUpdateForm(
+      @PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId, Model model) {
+    Pet pet = findOwner(ownerId).getPet(petId);
+    model.addAttribute("pet", pet);
+    return VIEWS_PETS_CREATE_OR_UPDATE_FORM;
+  }
+}
@@ -0,0 +1,5 @@
+package org.springframework.samples.petclinic.owner;
+
+import org.springframework.samples.petclinic.model.NamedEntity;
+
+public class PetType extends NamedEntity {}
@@ -0,0 +1,25 @@
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import org.springframework.samples.petclinic.model.BaseEntity;
+
+public class Visit extends BaseEntity {
+  private LocalDate date = LocalDate.now();
+  private String description;
+
+  public LocalDate getDate() {
+    return this.date;
+  }
+
+  public void setDate(LocalDate date) {
+    this.date = date;
+  }
+
+  public String getDescription() {
+    return this.description;
+  }
+
+  public void setDescription(String description) {
+    this.description = description;
+  }
+}
@@ -0,0 +1,37 @@
+package org.springframework.samples.petclinic.owner;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+
+@org.springframework.stereotype.Controller
+class VisitController {
+  private final OwnerRepository owners;
+
+  public VisitController(OwnerRepository owners) {
+    this.owners = owners;
+  }
+
+  public Visit loadPetWithVisit(int ownerId, int petId) {
+    Owner owner = this.owners.findById(ownerId).orElseThrow();
+    Pet pet = owner.getPet(petId);
+    Visit visit = new Visit();
+    pet.addVisit(visit);
+    return visit;
+  }
+
+  @GetMapping("/owners/{ownerId}/pets/{petId}/visits/new")
+  public String initNewVisitForm(@PathVariable int ownerId, @PathVariable int petId) {
+    loadPetWithVisit(ownerId, petId);
+    return "pets/createOrUpdateVisitForm";
+  }
+
+  @PostMapping("/owners/{ownerId}/pets/{petId}/visits/new")
+  public String processNewVisitForm(
+      @PathVariable int ownerId, @PathVariable int petId, Visit visit) {
+    Owner owner = this.owners.findById(ownerId).orElseThrow();
+    owner.addVisit(petId, visit);
+    this.owners.save(owner);
+    return "redirect:/owners/{ownerId}";
+  }
+}
@@ -0,0 +1,12 @@
+package org.springframework.samples.petclinic.system;
+
+import org.springframework.web.bind.annotation.GetMapping;
+
+@org.springframework.stereotype.Controller
+class CrashController {
+  @GetMapping("/oups")
+  public String triggerException() {
+    throw new RuntimeException(
+        "Expected: controller used to showcase what happens when an exception is thrown");
+  }
+}
@@ -0,0 +1,11 @@
+package org.springframework.samples.petclinic.system;
+
+import org.springframework.web.bind.annotation.GetMapping;
+
+@org.springframework.stereotype.Controller
+class WelcomeController {
+  @GetMapping("/")
+  public String welcome() {
+    return "welcome";
+  }
+}
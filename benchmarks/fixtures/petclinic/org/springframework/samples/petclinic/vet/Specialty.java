@@ -0,0 +1,5 @@
+package org.springframework.samples.petclinic.vet;
+
+import org.springframework.samples.petclinic.model.NamedEntity;
+
+public class Specialty extends NamedEntity {}
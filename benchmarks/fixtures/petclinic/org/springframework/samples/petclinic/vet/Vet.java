@@ -0,0 +1,34 @@
+package org.springframework.samples.petclinic.vet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.samples.petclinic.model.Person;
+
+public class Vet extends Person {
+  private Set<Specialty> specialties;
+
+  protected Set<Specialty> getSpecialtiesInternal() {
+    if (this.specialties == null) {
+      this.specialties = new HashSet<>();
+    }
+    return this.specialties;
+  }
+
+  public List<Specialty> getSpecialties() {
+    return getSpecialtiesInternal().stream()
+        .sorted(Comparator.comparing(Specialty::getName))
+        .collect(Collectors.toCollection(ArrayList::new));
+  }
+
+  public int getNrOfSpecialties() {
+    return getSpecialtiesInternal().size();
+  }
+
+  public void addSpecialty(Specialty specialty) {
+    getSpecialtiesInternal().add(specialty);
+  }
+}
@@ -0,0 +1,32 @@
+package org.springframework.samples.petclinic.vet;
+
+import java.util.List;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+@org.springframework.stereotype.Controller
+class VetController {
+  private final VetRepository vetRepository;
+
+  public VetController(VetRepository vetRepository) {
+    this.vetRepository = vetRepository;
+  }
+
+  @GetMapping("/vets.html")
+  public String showVetList(@RequestParam(defaultValue = "1") int page, Model model) {
+    Vets vets = new Vets();
+    List<Vet> paginated = this.vetRepository.findAll(page - 1, 5);
+    vets.getVetList().addAll(paginated);
+    model.addAttribute("listVets", paginated);
+    return "vets/vetList";
+  }
+
+  @GetMapping({"/vets"})
+  public @ResponseBody Vets showResourcesVetList() {
+    Vets vets = new Vets();
+    vets.getVetList().addAll(this.vetRepository.findAll());
+    return vets;
+  }
+}
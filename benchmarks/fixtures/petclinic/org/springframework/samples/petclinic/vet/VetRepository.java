@@ -0,0 +1,10 @@
+package org.springframework.samples.petclinic.vet;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface VetRepository {
+  Collection<Vet> findAll();
+
+  List<Vet> findAll(int page, int size);
+}
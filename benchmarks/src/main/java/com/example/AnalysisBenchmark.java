@@ -0,0 +1,78 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing, symbol resolution and extraction over a whole fixture project. One operation analyses
+ * every file of the fixture once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalysisBenchmark {
+
+  @Param({"petclinic"})
+  public String fixture;
+
+  private String root;
+  private List<String> files;
+  private String outputDir;
+  // Keeps its symbol solver and resolution cache across operations
+  private DependencyAnalyzer warmAnalyzer;
+
+  @Setup
+  public void setUp() throws IOException {
+    Path fixtureRoot = Fixtures.root(fixture);
+    root = fixtureRoot.toString();
+    files = Fixtures.javaFiles(fixtureRoot);
+    outputDir = Files.createTempDirectory("analyser-bench").toString();
+    warmAnalyzer = new DependencyAnalyzer(root, Collections.emptyList(), outputDir);
+  }
+
+  /** DependencyAnalyzer.analyzeFile with a fresh symbol solver and resolution cache. */
+  @Benchmark
+  public void analyzeFileCold(Blackhole bh) throws IOException {
+    DependencyAnalyzer analyzer = new DependencyAnalyzer(root, Collections.emptyList(), outputDir);
+    for (String file : files) {
+      bh.consume(analyzer.analyzeFile(file));
+    }
+  }
+
+  /** DependencyAnalyzer.analyzeFile with the caches of earlier operations. */
+  @Benchmark
+  public void analyzeFileWarm(Blackhole bh) throws IOException {
+    for (String file : files) {
+      bh.consume(warmAnalyzer.analyzeFile(file));
+    }
+  }
+
+  @Benchmark
+  public Object codeExtractorAnalyzeProject() throws IOException {
+    return new CodeExtractor().analyzeProject(root);
+  }
+
+  @Benchmark
+  public Object apiExtractorAnalyseProject() throws IOException {
+    return new APIExtractor().analyseProject(root);
+  }
+}
@@ -0,0 +1,54 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Locates the fixture source roots benchmarks run against. Fixtures live in {@code fixtures/}
+ * next to this module's pom; set {@code -Dbenchmark.fixtures=DIR} to run from elsewhere.
+ *
+ * <p>A fixture named {@code synthetic-N} is an N-package project from {@link
+ * SyntheticProjectGenerator} with its default shape, generated into {@code target/fixtures} on
+ * first use.
+ */
+final class Fixtures {
+  private static final String SYNTHETIC = "synthetic-";
+
+  private Fixtures() {}
+
+  static Path root(String name) throws IOException {
+    if (name.startsWith(SYNTHETIC)) {
+      return synthetic(Integer.parseInt(name.substring(SYNTHETIC.length())));
+    }
+    Path root = Paths.get(System.getProperty("benchmark.fixtures", "fixtures")).resolve(name);
+    if (!Files.isDirectory(root)) {
+      throw new IllegalStateException("Fixture not found: " + root.toAbsolutePath());
+    }
+    return root;
+  }
+
+  private static synchronized Path synthetic(int packages) throws IOException {
+    Path root = Paths.get("target", "fixtures", SYNTHETIC + packages);
+    if (!Files.isDirectory(root)) {
+      SyntheticProjectGenerator.Shape shape = new SyntheticProjectGenerator.Shape();
+      shape.packages = packages;
+      new SyntheticProjectGenerator(shape).generate(root);
+    }
+    return root;
+  }
+
+  static List<String> javaFiles(Path root) throws IOException {
+    try (Stream<Path> paths = Files.walk(root)) {
+      return paths
+          .filter(p -> p.toString().endsWith(".java"))
+          .sorted()
+          .map(Path::toString)
+          .collect(Collectors.toList());
+    }
+  }
+}
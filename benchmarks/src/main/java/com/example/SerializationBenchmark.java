@@ -0,0 +1,60 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Writing the dependency and code indexes of a fixture project, analysed once up front. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+  @Param({"petclinic"})
+  public String fixture;
+
+  private CallGraph callGraph;
+  private Map<String, String> codeMap;
+  private String dependencyFile;
+  private String codeFile;
+
+  @Setup
+  public void setUp() throws IOException {
+    String root = Fixtures.root(fixture).toString();
+    Path outputDir = Files.createTempDirectory("analyser-bench");
+    DependencyAnalyzer analyzer =
+        new DependencyAnalyzer(root, Collections.emptyList(), outputDir.toString());
+    analyzer.analyzeProject(root);
+    callGraph = analyzer.getCallGraph();
+    codeMap = new CodeExtractor().analyzeProject(root);
+    dependencyFile = outputDir.resolve("dependencies.json").toString();
+    codeFile = outputDir.resolve("code.json").toString();
+  }
+
+  @Benchmark
+  public void methodDependencyWriter() throws IOException {
+    MethodDependencyWriter.writeAsJson(callGraph, dependencyFile);
+  }
+
+  @Benchmark
+  public void methodCodeWriter() throws IOException {
+    MethodCodeWriter.writeAsJson(codeMap, codeFile);
+  }
+}
@@ -17,40 +17,101 @@ class TestCaseGenerator:
             messages=[{"role": "user", "content": prompt}],
             max_tokens=10000)
 
+def package_of(signature: str):
+    """Package part of a "package.Class.method(params)" signature, as ShardedOutput.packageOf."""
+    qualified_method = signature.split("(", 1)[0]
+    method_dot = qualified_method.rfind(".")
+    class_dot = qualified_method.rfind(".", 0, method_dot) if method_dot > 0 else -1
+    return qualified_method[:class_dot] if class_dot >= 0 else ""
+
+class ShardedIndex:
+    """Loads the shards of one kind ("code" or "dependencies") written with --shard-by on first use."""
+    def __init__(self, output_dir: str, kind: str):
+        self.output_dir = output_dir
+        self.kind = kind
+        with open(os.path.join(output_dir, "shards.json"), 'r') as f:
+            self.manifest = json.load(f)
+        self.loaded = {}
+
+    def _shard(self, shard: str):
+        if shard not in self.loaded:
+            file_name = self.manifest["shards"][shard][self.kind]
+            with open(os.path.join(self.output_dir, file_name), 'r') as f:
+                self.loaded[shard] = json.load(f)
+        return self.loaded[shard]
+
+    def get_shard(self, function_name: str):
+        shard = self.manifest["packages"].get(package_of(function_name))
+        return self._shard(shard) if shard is not None else {}
+
+    def get_all(self):
+        index = {}
+        for shard in self.manifest["shards"]:
+            index.update(self._shard(shard))
+        return index
+
+def open_index(path: str, kind: str):
+    """The index at path: a <kind>.json file, or an output directory with its shards or <kind>.json.
+
+    A sharded run writes no <kind>.json, so a path to one that is missing opens the shards of its
+    directory instead.
+    """
+    output_dir = path if os.path.isdir(path) else os.path.dirname(path)
+    if not os.path.isfile(path) and os.path.exists(os.path.join(output_dir, "shards.json")):
+        return ShardedIndex(output_dir, kind)
+    if os.path.isdir(path):
+        path = os.path.join(path, kind + ".json")
+    with open(path, 'r') as f:
+        return json.load(f)
+
 class CodeIndexer:
-    def __init__(self, file_path: str):
-        with open(file_path, 'r') as f:
-            self.code_index = json.load(f)
+    def __init__(self, path: str):
+        """path: code.json, or the output directory holding it or its shards."""
+        self.code_index = open_index(path, "code")
+
+    def _lookup(self, function_name: str):
+        if isinstance(self.code_index, ShardedIndex):
+            return self.code_index.get_shard(function_name)
+        return self.code_index
 
     def has_code(self, function_name: str):
-        return function_name in self.code_index
+        return function_name in self._lookup(function_name)
 
     def get_code(self, function_name: str):
-        return self.code_index[function_name]
+        return self._lookup(function_name)[function_name]
 
     def get_all_codes(self):
+        if isinstance(self.code_index, ShardedIndex):
+            return self.code_index.get_all()
         return self.code_index
 
     def get_all_functions(self):
-        return list(self.code_index.keys())
+        return list(self.get_all_codes().keys())
 
 class DependencyIndexer:
-    def __init__(self, file_path: str):
-        with open(file_path, 'r') as f:
-            self.dependency_index = json.load(f)
+    def __init__(self, path: str):
+        """path: dependencies.json, or the output directory holding it or its shards."""
+        self.dependency_index = open_index(path, "dependencies")
 
     def get_dependencies(self, function_name: str):
+        if isinstance(self.dependency_index, ShardedIndex):
+            return self.dependency_index.get_shard(function_name)[function_name]
         return self.dependency_index[function_name]
 
     def get_all_dependencies(self):
+        if isinstance(self.dependency_index, ShardedIndex):
+            return self.dependency_index.get_all()
         return self.dependency_index
-    
+
     def get_all_functions(self):
-        return list(self.dependency_index.keys())
+        return list(self.get_all_dependencies().keys())
 
 class APIIndexer:
-    def __init__(self, file_path: str):
-        with open(file_path, 'r') as f:
+    def __init__(self, path: str):
+        """path: api_endpoints.json, or the output directory holding it."""
+        if os.path.isdir(path):
+            path = os.path.join(path, "api_endpoints.json")
+        with open(path, 'r') as f:
             self.api_index = json.load(f)
 
     def get_all_apis(self):